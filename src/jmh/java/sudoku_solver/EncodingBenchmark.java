@@ -0,0 +1,119 @@
+package sudoku_solver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// Measures the four phases of every encoding separately on the bundled inputs:
+//   encode - clause generation only, into a CountingSink that stores nothing, on
+//            options.threads threads (-p threads=1,2,4,8 for the parallel speedup)
+//   load   - adding the pre-generated clauses to a fresh sat4j solver
+//   solve  - isSatisfiable() on a solver loaded before the measured call
+//   decode - turning the model back into a grid
+// main() adds the GC profiler so every run also reports allocation rates. Run from the
+// project root (the inputs are read from src/main/java/sudoku_solver/input), e.g.
+//   java -jar target/benchmarks.jar -p test=5,6,7 -p encoding=Binary
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class EncodingBenchmark {
+    @Param({"Bionomial", "Binary", "Sequential"})
+    public String encoding;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10"})
+    public int test;
+
+    @Param({"1"})
+    public int threads;
+
+    private int[][] grid;
+    private SudokuEncoder encoder;
+    private ClauseBuffer clauses;
+    private int[] model;
+
+    @Setup(Level.Trial)
+    public void prepare() throws ContradictionException, TimeoutException {
+        grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input" + test + ".txt");
+        encoder = Encodings.create(encoding, grid.length, options());
+        clauses = new ClauseBuffer(1 << 20);
+        encoder.encode(grid, clauses);
+        ISolver solver = load();
+        if (!solver.isSatisfiable()) throw new IllegalStateException("input" + test + " is unsatisfiable");
+        model = solver.model();
+    }
+
+    // a separate state so that only solve() pays for reloading before every call
+    @State(Scope.Thread)
+    public static class Loaded {
+        ISolver solver;
+
+        @Setup(Level.Invocation)
+        public void load(EncodingBenchmark benchmark) throws ContradictionException {
+            solver = benchmark.load();
+        }
+    }
+
+    private SolverOptions options() {
+        SolverOptions options = new SolverOptions();
+        options.threads = threads;
+        return options;
+    }
+
+    private ISolver load() throws ContradictionException {
+        ISolver solver = SolverConfig.create(SolverConfig.DEFAULT);
+        SolverSink sink = new SolverSink(solver);
+        sink.newVars(encoder.nVars());
+        clauses.replayTo(sink);
+        return solver;
+    }
+
+    @Benchmark
+    public long encode() throws ContradictionException {
+        CountingSink sink = new CountingSink();
+        Encodings.create(encoding, grid.length, options()).encode(grid, sink);
+        return sink.clauses;
+    }
+
+    @Benchmark
+    public ISolver loadIntoSat4j() throws ContradictionException {
+        return load();
+    }
+
+    @Benchmark
+    public boolean solve(Loaded loaded) throws TimeoutException {
+        return loaded.solver.isSatisfiable();
+    }
+
+    @Benchmark
+    public int[][] decode() {
+        return encoder.decode(model);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Picks, for each puzzle, the encoding with the lowest expected end-to-end time under the
+// SizeEstimate cost model among those that fit the memory and time budget, and encodes with
+// it. When none fits it picks the one with the smallest predicted heap and lets Budget
+// decide. name() reports the pick once a puzzle has been seen.
+public class AutoEncoder implements SudokuEncoder {
+    public static final String[] CANDIDATES = {"Bionomial", "Binary", "Sequential", "Mixed"};
+
+    public int matrixSize;
+    public SolverOptions options;
+    public SudokuEncoder chosen;
+
+    public AutoEncoder(int matrixSize, SolverOptions options) {
+        this.matrixSize = matrixSize;
+        this.options = options;
+    }
+
+    public String name() {
+        return chosen == null ? "Auto" : "Auto(" + chosen.name() + ")";
+    }
+
+    public SudokuEncoder select(int[][] grid) {
+        SudokuEncoder best = null;
+        SizeEstimate bestEstimate = null;
+        boolean bestFits = false;
+        for (String name : CANDIDATES) {
+            SudokuEncoder candidate = Encodings.create(name, matrixSize, options);
+            SizeEstimate estimate = candidate.estimate(grid);
+            boolean fits = Budget.exceeds(estimate, Budget.instances(options), options) == null;
+            boolean better;
+            if (best == null || fits != bestFits) {
+                better = best == null || fits;
+            } else if (fits) {
+                better = estimate.expectedSeconds() < bestEstimate.expectedSeconds();
+            } else {
+                better = estimate.memoryBytes() < bestEstimate.memoryBytes();
+            }
+            if (better) {
+                best = candidate;
+                bestEstimate = estimate;
+                bestFits = fits;
+            }
+        }
+        return best;
+    }
+
+    public void encode(int[][] grid, ClauseSink sink) throws ContradictionException {
+        chosen = select(grid);
+        chosen.encode(grid, sink);
+    }
+
+    public int nVars() {
+        return chosen.nVars();
+    }
+
+    public int[][] decode(int[] model) {
+        return chosen.decode(model);
+    }
+
+    public int[] valueLiterals(int i, int j, int value) {
+        return chosen.valueLiterals(i, j, value);
+    }
+
+    public SizeEstimate estimate(int[][] grid) {
+        return select(grid).estimate(grid);
+    }
+}
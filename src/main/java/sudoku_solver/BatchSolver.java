@@ -0,0 +1,239 @@
+package sudoku_solver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Pushes puzzle files through a reader -> workers -> writer pipeline. One reader thread parses
+// puzzles into a bounded queue, options.workers threads solve each puzzle with every encoding in
+// options.encodings, and one writer thread drains the bounded result queue into the output CSV.
+// The bounded queues make a slow stage hold back the faster ones instead of buffering everything.
+public class BatchSolver {
+    private static final Job END = new Job(-1, null, null);
+    private static final String DONE = new String("done");
+
+    public long puzzles = 0;
+    public long failures = 0; // puzzles some encoding did not solve
+    public long wallTime = 0; // ns
+    public Map<String, LatencyStats> latencies = new LinkedHashMap<String, LatencyStats>();
+
+    private List<File> inputs;
+    private File output;
+    private SolverOptions options;
+    private volatile Throwable error;
+
+    private static class Job {
+        long id;
+        String source;
+        int[][] grid;
+
+        Job(long id, String source, int[][] grid) {
+            this.id = id;
+            this.source = source;
+            this.grid = grid;
+        }
+    }
+
+    public BatchSolver(List<File> inputs, File output, SolverOptions options) {
+        this.inputs = inputs;
+        this.output = output;
+        this.options = options;
+        for (String name : options.encodings) latencies.put(name, new LatencyStats());
+    }
+
+    public void run() throws IOException, InterruptedException {
+        final BlockingQueue<Job> jobs = new ArrayBlockingQueue<Job>(options.queueSize);
+        final BlockingQueue<String> lines = new ArrayBlockingQueue<String>(options.queueSize);
+        final BufferedWriter writer = new BufferedWriter(new FileWriter(output), 1 << 16);
+        writer.write("Id, Source, Size, Encoding, Status, Latency (us), Solution\n");
+
+        long start = System.nanoTime();
+        Thread readerThread = new Thread(new Runnable() {
+            public void run() {
+                read(jobs);
+            }
+        }, "batch-reader");
+        Thread writerThread = new Thread(new Runnable() {
+            public void run() {
+                write(lines, writer);
+            }
+        }, "batch-writer");
+        final List<Map<String, LatencyStats>> perWorker = new ArrayList<Map<String, LatencyStats>>();
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int w = 0; w < options.workers; w++) {
+            final Map<String, LatencyStats> mine = new LinkedHashMap<String, LatencyStats>();
+            for (String name : options.encodings) mine.put(name, new LatencyStats());
+            perWorker.add(mine);
+            workers.add(new Thread(new Runnable() {
+                public void run() {
+                    work(jobs, lines, mine);
+                }
+            }, "batch-worker-" + w));
+        }
+
+        readerThread.start();
+        writerThread.start();
+        for (Thread worker : workers) worker.start();
+        readerThread.join();
+        for (Thread worker : workers) worker.join();
+        lines.put(DONE);
+        writerThread.join();
+        writer.close();
+        wallTime = System.nanoTime() - start;
+
+        for (Map<String, LatencyStats> mine : perWorker) {
+            for (String name : options.encodings) latencies.get(name).addAll(mine.get(name));
+        }
+        if (error != null) throw new IOException("batch failed", error);
+    }
+
+    private void read(BlockingQueue<Job> jobs) {
+        long id = 0;
+        try {
+            for (File file : inputs) {
+                PuzzleReader reader = new PuzzleReader(file);
+                try {
+                    int[][] grid;
+                    while (error == null && (grid = reader.next()) != null) {
+                        jobs.put(new Job(++id, file.getName(), grid));
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            puzzles = id;
+            try {
+                for (int w = 0; w < options.workers; w++) jobs.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // a worker that dies, of an OutOfMemoryError say, fails the batch and keeps taking jobs up to
+    // its END, so the reader (which stops on the error) never blocks on a full queue
+    private void work(BlockingQueue<Job> jobs, BlockingQueue<String> lines, Map<String, LatencyStats> mine) {
+        Map<String, TemplateSolver> templates = new HashMap<String, TemplateSolver>();
+        try {
+            Job job;
+            while ((job = jobs.take()) != END) {
+                boolean solved = true;
+                for (String name : options.encodings) {
+                    String status;
+                    long latency;
+                    int[][] result = null;
+                    long start = System.nanoTime();
+                    try {
+                        SolveResult run = null;
+                        if (name.equals(DancingLinks.NAME)) {
+                            run = DancingLinks.run(job.grid, options);
+                        } else if (options.template) {
+                            run = template(templates, name, job.grid.length).solve(job.grid);
+                        } else {
+                            Budget budget = Budget.plan(name, job.grid, options);
+                            if (budget.encoder != null) run = SolveResult.run(budget.encoder, job.grid, options);
+                        }
+                        status = run == null ? SolveResult.SKIPPED : run.status;
+                        result = run == null ? null : run.result;
+                    } catch (RuntimeException e) {
+                        status = "failed: " + e;
+                    }
+                    latency = System.nanoTime() - start;
+                    mine.get(name).add(latency);
+                    if (!status.equals(SolveResult.SAT)) solved = false;
+                    lines.put(job.id + "," + job.source + "," + job.grid.length + "," + name + "," + status + ","
+                            + latency / 1000 + "," + flatten(result));
+                }
+                if (!solved) {
+                    synchronized (this) {
+                        failures++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (error == null) error = e;
+            templates.clear();
+            drain(jobs);
+        }
+    }
+
+    private void drain(BlockingQueue<Job> jobs) {
+        try {
+            while (jobs.take() != END) {
+                // dropped, the batch has failed
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // templates are per worker because a sat4j solver must not be shared between threads
+    private TemplateSolver template(Map<String, TemplateSolver> templates, String name, int matrixSize) {
+        String key = name + "/" + matrixSize;
+        TemplateSolver template = templates.get(key);
+        if (template == null) {
+            template = new TemplateSolver(name, matrixSize, options);
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    // keeps draining after a write error so the workers never block on a full queue
+    private void write(BlockingQueue<String> lines, BufferedWriter writer) {
+        try {
+            String line;
+            while ((line = lines.take()) != DONE) {
+                if (error != null) continue;
+                try {
+                    writer.write(line);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String flatten(int[][] grid) {
+        if (grid == null) return "";
+        StringBuilder builder = new StringBuilder();
+        for (int[] row : grid) {
+            for (int value : row) {
+                if (builder.length() > 0) builder.append(' ');
+                builder.append(value);
+            }
+        }
+        return builder.toString();
+    }
+
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        double seconds = wallTime / 1e9;
+        builder.append(String.format(
+                "%d puzzles in %.2f s, %.1f puzzles/s, %d workers, %d not solved by every encoding%n",
+                puzzles, seconds, puzzles / seconds, options.workers, failures));
+        builder.append("Encoding, Solves, Mean (us), p50 (us), p90 (us), p99 (us), Max (us)\n");
+        for (Map.Entry<String, LatencyStats> entry : latencies.entrySet()) {
+            LatencyStats stats = entry.getValue();
+            builder.append(entry.getKey() + "," + stats.count() + "," + stats.mean() / 1000 + ","
+                    + stats.percentile(50) / 1000 + "," + stats.percentile(90) / 1000 + ","
+                    + stats.percentile(99) / 1000 + "," + stats.percentile(100) / 1000 + "\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package sudoku_solver;
+
+// Decides from the size estimate alone, before any clause is allocated, whether an encoding
+// fits options.memoryBudget and options.timeout. One that does not fit is skipped, or with
+// --over-budget=redirect replaced by the encoding with the smallest predicted heap that fits,
+// among those Encodings.offered allows. A cube solve holds the ClauseBuffer and one solver per
+// worker at once, so plan charges the heap estimate that many times.
+public class Budget {
+    public SudokuEncoder encoder; // what to run, null when skipped
+    public SizeEstimate estimate; // of the requested encoding
+    public String note; // why the requested encoding is not run, null when it fits
+
+    public static Budget plan(String encoding, int[][] grid, SolverOptions options) {
+        Budget budget = new Budget();
+        SudokuEncoder requested = Encodings.create(encoding, grid.length, options);
+        budget.estimate = requested.estimate(grid);
+        int instances = instances(options);
+        budget.note = exceeds(budget.estimate, instances, options);
+        if (budget.note == null) {
+            budget.encoder = requested;
+        } else if (options.overBudget.equals("redirect")) {
+            long best = Long.MAX_VALUE;
+            for (String name : Encodings.ALL) {
+                if (!Encodings.offered(name, options)) continue;
+                SudokuEncoder candidate = Encodings.create(name, grid.length, options);
+                SizeEstimate estimate = candidate.estimate(grid);
+                if (exceeds(estimate, instances, options) == null && estimate.memoryBytes() < best) {
+                    best = estimate.memoryBytes();
+                    budget.encoder = candidate;
+                }
+            }
+            if (budget.encoder != null) budget.note += " - redirected to " + budget.encoder.name();
+        }
+        return budget;
+    }
+
+    // copies of the formula a solve keeps: the buffer and the workers' solvers in cube mode
+    public static int instances(SolverOptions options) {
+        return options.cubeCells > 0 ? Math.max(options.cubeWorkers, 1) + 1 : 1;
+    }
+
+    // null when the estimate fits, otherwise which budget it breaks
+    public static String exceeds(SizeEstimate estimate, SolverOptions options) {
+        return exceeds(estimate, 1, options);
+    }
+
+    public static String exceeds(SizeEstimate estimate, int instances, SolverOptions options) {
+        long memory = estimate.memoryBytes() * instances;
+        if (memory > options.memoryBudget) {
+            String copies = instances == 1 ? "" : " (" + instances + " x " + estimate.memoryBytes() / (1 << 20)
+                    + " MB: the clause buffer and " + (instances - 1) + " cube workers)";
+            return "predicted " + memory / (1 << 20) + " MB" + copies + " over the "
+                    + options.memoryBudget / (1 << 20) + " MB budget";
+        }
+        if (estimate.loadSeconds() > options.timeout) {
+            return String.format("predicted %.0f s to encode over the %d s timeout", estimate.loadSeconds(),
+                    options.timeout);
+        }
+        return null;
+    }
+}
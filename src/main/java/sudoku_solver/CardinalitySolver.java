@@ -0,0 +1,40 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Hands every at-most-one to the sink as a single cardinality constraint instead of CNF, so
+// with a SolverSink sat4j propagates it natively (solver.addAtMost(unit, 1)); with the ALO
+// clause UnitEncoder adds, each unit is what solver.addExactly(unit, 1) would build. Sinks
+// without native constraints, like DimacsSink, still get the pairwise clauses.
+public class CardinalitySolver extends UnitEncoder {
+    public CardinalitySolver(int matrixSize, SolverOptions options) {
+        super(matrixSize, options);
+    }
+
+    public String name() {
+        return "Cardinality";
+    }
+
+    protected int auxVars(int length) {
+        return 0;
+    }
+
+    // one constraint over the whole unit; two literals are just a binary clause
+    protected long clauses(int length) {
+        return length < 2 ? 0 : 1;
+    }
+
+    protected long binaryClauses(int length) {
+        return length == 2 ? 1 : 0;
+    }
+
+    protected long literals(int length) {
+        return length < 2 ? 0 : length;
+    }
+
+    protected void atMostOne(int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException {
+        if (length == 2) sink.addBinary(-literals[0], -literals[1]);
+        else if (length > 2) sink.addAtMostOne(literals, length);
+    }
+}
@@ -0,0 +1,78 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Packs clauses into one growing int[] as [length, literal, literal, ...] records, so a
+// worker thread can generate its share of the CNF and hand it over to a single-threaded
+// sink later through replayTo. An at-most-one constraint is recorded with -length.
+public class ClauseBuffer implements ClauseSink {
+    private int[] data;
+    private int size = 0;
+    private int count = 0;
+    private int maxLength = 0;
+
+    public ClauseBuffer(int capacity) {
+        this.data = new int[Math.max(capacity, 16)];
+    }
+
+    public void addClause(int[] literals, int length) {
+        ensure(length + 1);
+        data[size++] = length;
+        System.arraycopy(literals, 0, data, size, length);
+        size += length;
+        count++;
+        maxLength = Math.max(maxLength, length);
+    }
+
+    public void addBinary(int a, int b) {
+        ensure(3);
+        data[size++] = 2;
+        data[size++] = a;
+        data[size++] = b;
+        count++;
+        maxLength = Math.max(maxLength, 2);
+    }
+
+    public void addAtMostOne(int[] literals, int length) {
+        ensure(length + 1);
+        data[size++] = -length;
+        System.arraycopy(literals, 0, data, size, length);
+        size += length;
+        count++;
+        maxLength = Math.max(maxLength, length);
+    }
+
+    public void newVars(int count) {
+    }
+
+    public int nClauses() {
+        return count;
+    }
+
+    public void replayTo(ClauseSink sink) throws ContradictionException {
+        int[] literals = new int[maxLength];
+        int pos = 0;
+        while (pos < size) {
+            int length = data[pos++];
+            if (length < 0) {
+                length = -length;
+                System.arraycopy(data, pos, literals, 0, length);
+                sink.addAtMostOne(literals, length);
+            } else if (length == 2) {
+                sink.addBinary(data[pos], data[pos + 1]);
+            } else {
+                System.arraycopy(data, pos, literals, 0, length);
+                sink.addClause(literals, length);
+            }
+            pos += length;
+        }
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > data.length) {
+            int[] grown = new int[Math.max(data.length * 2, size + extra)];
+            System.arraycopy(data, 0, grown, 0, size);
+            data = grown;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Rule generators push every clause straight into a sink instead of collecting them in a
+// list first, so the CNF is held only once (by whatever is behind the sink).
+// Encoders reuse their literal buffers between calls, so a sink must copy what it keeps.
+public interface ClauseSink {
+    void addClause(int[] literals, int length) throws ContradictionException;
+
+    void addBinary(int a, int b) throws ContradictionException;
+
+    // called once the encoder knows how many variables it used
+    void newVars(int count);
+
+    int nClauses();
+
+    // at most one of literals[0 .. length) is true; sinks that can take a cardinality
+    // constraint natively keep it as one, the others get every pair as a binary clause
+    default void addAtMostOne(int[] literals, int length) throws ContradictionException {
+        for (int a = 0; a < length; a++) {
+            for (int b = a + 1; b < length; b++) {
+                addBinary(-literals[a], -literals[b]);
+            }
+        }
+    }
+
+    default void addClause(int[] clause) throws ContradictionException {
+        addClause(clause, clause.length);
+    }
+}
@@ -0,0 +1,74 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Commander encoding (Klieber and Kwon) of at-most-one: the literals are split into groups of
+// options.commanderGroup, each group gets pairwise AMO and a commander variable that is true
+// exactly when one of its literals is, and the commanders are constrained the same way one
+// level up until at most commanderGroup of them are left for a final pairwise AMO. A group of
+// a single literal is its own commander.
+public class CommanderSolver extends UnitEncoder {
+    public int group;
+    private CountingSink[] sizes;
+
+    public CommanderSolver(int matrixSize, SolverOptions options) {
+        super(matrixSize, options);
+        this.group = options.commanderGroup;
+        this.sizes = countedSizes();
+    }
+
+    public String name() {
+        return "Commander";
+    }
+
+    protected int auxVars(int length) {
+        return sizes[length].variables;
+    }
+
+    protected long clauses(int length) {
+        return sizes[length].clauses;
+    }
+
+    protected long binaryClauses(int length) {
+        return sizes[length].binaryClauses;
+    }
+
+    protected long literals(int length) {
+        return sizes[length].literals;
+    }
+
+    protected void atMostOne(int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException {
+        commanders(literals, length, firstAux, sink);
+    }
+
+    // emits one level and recurses on its commanders; returns the next unused variable
+    private int commanders(int[] literals, int length, int nextAux, ClauseSink sink)
+            throws ContradictionException {
+        if (length <= group) {
+            pairwise(literals, 0, length, sink);
+            return nextAux;
+        }
+        int[] commanders = new int[(length + group - 1) / group];
+        int[] clause = new int[group + 1];
+        for (int g = 0; g < commanders.length; g++) {
+            int from = g * group;
+            int to = Math.min(from + group, length);
+            if (to - from == 1) {
+                commanders[g] = literals[from];
+                continue;
+            }
+            int commander = nextAux++;
+            commanders[g] = commander;
+            pairwise(literals, from, to, sink);
+            // a true literal sets its commander, a true commander needs one of its literals
+            clause[0] = -commander;
+            for (int p = from; p < to; p++) {
+                sink.addBinary(-literals[p], commander);
+                clause[p - from + 1] = literals[p];
+            }
+            sink.addClause(clause, to - from + 1);
+        }
+        return commanders(commanders, commanders.length, nextAux, sink);
+    }
+}
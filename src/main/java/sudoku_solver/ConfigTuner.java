@@ -0,0 +1,146 @@
+package sudoku_solver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Picks the sat4j configuration of every (encoding, size) pair from a training set. Each
+// candidate configuration solves all training puzzles of that size with that encoding as one
+// task; the tasks run on options.workers threads, so keep workers at or below the cores for
+// fair timings. A configuration scores its total time, with a timeout, a wrong answer or a
+// skip over budget charged twice options.timeout (PAR-2), and the lowest score wins. The
+// winners are written as "encoding/size=config" lines that --tuned= loads back for production.
+public class ConfigTuner {
+    public static final String[] CANDIDATES = {"Default", "Light", "Glucose", "MiniSATHeap",
+            "MiniLearningHeapRsatExpSimpLuby", "BestWL"};
+
+    public Map<Integer, List<int[][]>> training = new TreeMap<Integer, List<int[][]>>(); // by size
+    public Map<String, Map<String, Long>> scores = new LinkedHashMap<String, Map<String, Long>>(); // ns
+    public int puzzles = 0;
+    private SolverOptions options;
+
+    public ConfigTuner(List<File> inputs, SolverOptions options) throws IOException {
+        this.options = options;
+        for (File file : inputs) {
+            PuzzleReader reader = new PuzzleReader(file);
+            try {
+                for (int[][] grid : reader) {
+                    List<int[][]> sameSize = training.get(grid.length);
+                    if (sameSize == null) {
+                        sameSize = new ArrayList<int[][]>();
+                        training.put(grid.length, sameSize);
+                    }
+                    sameSize.add(grid);
+                    puzzles++;
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    // every task runs options.tuneRounds times and only the last round is scored, so the
+    // tasks that happen to run first do not pay for the JIT warming up
+    public void run() throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(options.workers);
+        try {
+            for (int round = 1; round < options.tuneRounds; round++) {
+                for (Future<Long> warmUp : submit(pool).values()) warmUp.get();
+            }
+            for (Map.Entry<String, Future<Long>> task : submit(pool).entrySet()) {
+                String[] key = task.getKey().split("=");
+                Map<String, Long> pair = scores.get(key[0]);
+                if (pair == null) {
+                    pair = new LinkedHashMap<String, Long>();
+                    scores.put(key[0], pair);
+                }
+                pair.put(key[1], task.getValue().get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Map<String, Future<Long>> submit(ExecutorService pool) {
+        Map<String, Future<Long>> tasks = new LinkedHashMap<String, Future<Long>>();
+        for (String encoding : options.encodings) {
+            if (encoding.equals(DancingLinks.NAME)) continue; // not a sat4j solve
+            for (int size : training.keySet()) {
+                for (String config : options.tuneConfigs) {
+                    tasks.put(encoding + "/" + size + "=" + config,
+                            pool.submit(task(encoding, config, training.get(size))));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private Callable<Long> task(final String encoding, String config, final List<int[][]> grids) {
+        final SolverOptions tuning = options.copy();
+        tuning.encodingConfigs = new LinkedHashMap<String, String>();
+        tuning.solverConfig = config;
+        return new Callable<Long>() {
+            public Long call() {
+                long total = 0;
+                for (int[][] grid : grids) {
+                    Budget budget = Budget.plan(encoding, grid, tuning);
+                    SolveResult run = budget.encoder == null ? null : SolveResult.run(budget.encoder, grid, tuning);
+                    boolean answered = run != null
+                            && (run.status.equals(SolveResult.SAT) || run.status.equals(SolveResult.UNSAT));
+                    total += answered ? run.totalTime : 2L * tuning.timeout * 1000000000L;
+                }
+                return total;
+            }
+        };
+    }
+
+    // encoding/size -> the configuration with the lowest score
+    public Map<String, String> best() {
+        Map<String, String> best = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, Map<String, Long>> pair : scores.entrySet()) {
+            String winner = null;
+            for (Map.Entry<String, Long> score : pair.getValue().entrySet()) {
+                if (winner == null || score.getValue() < pair.getValue().get(winner)) winner = score.getKey();
+            }
+            best.put(pair.getKey(), winner);
+        }
+        return best;
+    }
+
+    public void write(File output) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new FileWriter(output));
+        try {
+            writer.write("# sat4j configuration per encoding/size, tuned on " + puzzles + " puzzles\n");
+            for (Map.Entry<String, String> entry : best().entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    public String report() {
+        StringBuilder builder = new StringBuilder("Encoding, Size, Config, Puzzles, Score (ms), Best\n");
+        Map<String, String> best = best();
+        for (Map.Entry<String, Map<String, Long>> pair : scores.entrySet()) {
+            String[] key = pair.getKey().split("/");
+            int count = training.get(Integer.parseInt(key[1])).size();
+            for (Map.Entry<String, Long> score : pair.getValue().entrySet()) {
+                builder.append(key[0] + "," + key[1] + "," + score.getKey() + "," + count + ","
+                        + score.getValue() / 1000000 + "," + score.getKey().equals(best.get(pair.getKey())) + "\n");
+            }
+        }
+        return builder.toString();
+    }
+}
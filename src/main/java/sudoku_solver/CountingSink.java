@@ -0,0 +1,35 @@
+package sudoku_solver;
+
+// Only counts what an encoding would produce, for size estimates without building anything.
+public class CountingSink implements ClauseSink {
+    public long clauses = 0;
+    public long binaryClauses = 0;
+    public long literals = 0;
+    public int variables = 0;
+
+    public void addClause(int[] literals, int length) {
+        clauses++;
+        if (length == 2) binaryClauses++;
+        this.literals += length;
+    }
+
+    public void addBinary(int a, int b) {
+        clauses++;
+        binaryClauses++;
+        literals += 2;
+    }
+
+    // a native constraint, one entry holding all its literals
+    public void addAtMostOne(int[] literals, int length) {
+        clauses++;
+        this.literals += length;
+    }
+
+    public void newVars(int count) {
+        variables = count;
+    }
+
+    public int nClauses() {
+        return (int) Math.min(clauses, Integer.MAX_VALUE);
+    }
+}
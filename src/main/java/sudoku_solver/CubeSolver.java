@@ -0,0 +1,257 @@
+package sudoku_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// Cube and conquer. The puzzle is split on the options.cubeCells open cells with the fewest
+// candidates left after propagation: every combination of their candidates that does not put
+// one value twice in a unit is a cube. It is encoded once into a ClauseBuffer, each of the
+// options.cubeWorkers threads replays that into a sat4j solver of its own and takes cubes off
+// a shared counter, searching under each as assumptions. The first satisfiable cube stops the
+// others through a SearchCancellation on each solver; the puzzle is unsatisfiable once every
+// cube is refuted.
+public class CubeSolver {
+    public SudokuEncoder encoder;
+    public int[] cells; // the split cells, i * matrixSize + j
+    public List<int[]> cubes = new ArrayList<int[]>(); // 1-based values of the cells
+    public String status;
+    public int[][] result;
+    public int nVars = 0;
+    public int nClauses = 0;
+    public int workers;
+    public long encodeTime = 0; // ns into the buffer
+    public long loadTime = 0; // ns, the slowest worker's replay
+    public long solveTime = 0; // ns, wall clock from the first replay to the last worker
+    public long conflicts = 0; // summed over the workers
+    public long decisions = 0;
+    public long propagations = 0;
+    public AtomicInteger refuted = new AtomicInteger();
+
+    private int matrixSize;
+    private int[][] grid;
+    private int[][] search;
+    private SolverOptions options;
+    private AtomicInteger next = new AtomicInteger();
+    private AtomicBoolean finished = new AtomicBoolean(false);
+    private AtomicReferenceArray<ISolver> solvers;
+    private long[] loadTimes;
+    private int[] model;
+
+    // grid for verification, search what is encoded (grid plus whatever propagation deduced)
+    public CubeSolver(SudokuEncoder encoder, int[][] grid, int[][] search, SolverOptions options) {
+        this.encoder = encoder;
+        this.grid = grid;
+        this.search = search;
+        this.options = options;
+        this.matrixSize = grid.length;
+        this.workers = Math.max(options.cubeWorkers, 1);
+        Propagator propagation = Propagator.run(search);
+        int[] count = new int[matrixSize * matrixSize]; // candidates of each open cell, 0 once taken
+        int open = 0;
+        for (int c = 0; c < count.length; c++) {
+            if (propagation.grid[c / matrixSize][c % matrixSize] != 0) continue;
+            count[c] = propagation.candidates(c / matrixSize, c % matrixSize).length;
+            open++;
+        }
+        cells = new int[Math.min(options.cubeCells, open)];
+        int[][] values = new int[cells.length][];
+        for (int p = 0; p < cells.length; p++) {
+            int best = -1;
+            for (int c = 0; c < count.length; c++) {
+                if (count[c] > 0 && (best < 0 || count[c] < count[best])) best = c;
+            }
+            count[best] = 0;
+            cells[p] = best;
+            values[p] = propagation.candidates(best / matrixSize, best % matrixSize);
+        }
+        if (!propagation.status.equals(Propagator.CONTRADICTION)) cube(values, 0, new int[cells.length]);
+    }
+
+    // every combination of values[p] from position p on that keeps peers apart
+    private void cube(int[][] values, int p, int[] cube) {
+        if (p == cells.length) {
+            cubes.add(cube.clone());
+            return;
+        }
+        for (int value : values[p]) {
+            boolean clash = false;
+            for (int q = 0; q < p && !clash; q++) clash = cube[q] == value && peers(cells[q], cells[p]);
+            if (clash) continue;
+            cube[p] = value;
+            cube(values, p + 1, cube);
+        }
+    }
+
+    private boolean peers(int a, int b) {
+        int n = matrixSize;
+        int blockSize = (int) Math.sqrt(n);
+        if (a / n == b / n || a % n == b % n) return true;
+        return blockSize * blockSize == n && a / n / blockSize == b / n / blockSize
+                && a % n / blockSize == b % n / blockSize;
+    }
+
+    public static SolveResult run(SudokuEncoder encoder, int[][] grid, SolverOptions options) {
+        long start = System.nanoTime();
+        int[][] search = grid;
+        if (options.propagate) {
+            Propagator propagation = Propagator.run(grid);
+            SolveResult settled = SolveResult.propagated(propagation, grid, start);
+            if (settled != null) return settled;
+            search = propagation.grid;
+        }
+        CubeSolver cubes = new CubeSolver(encoder, grid, search, options);
+        cubes.solve();
+        SolveResult run = new SolveResult();
+        run.encoding = encoder.name();
+        run.status = cubes.status;
+        run.result = cubes.result;
+        run.nVars = cubes.nVars;
+        run.nClauses = cubes.nClauses;
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+
+    public void solve() {
+        long start = System.nanoTime();
+        long deadline = start + options.timeout * 1000000000L;
+        ClauseBuffer buffer = new ClauseBuffer(1 << 16);
+        try {
+            encoder.encode(search, buffer);
+        } catch (ContradictionException e) {
+            status = SolveResult.UNSAT; // a ClauseBuffer takes everything, but the interface allows it
+            return;
+        }
+        nVars = encoder.nVars();
+        nClauses = buffer.nClauses();
+        encodeTime = System.nanoTime() - start;
+        if (cubes.isEmpty()) {
+            status = SolveResult.UNSAT; // propagation already found the contradiction
+            return;
+        }
+
+        solvers = new AtomicReferenceArray<ISolver>(workers);
+        loadTimes = new long[workers];
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "cube");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        start = System.nanoTime();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int w = 0; w < workers; w++) futures.add(pool.submit(worker(w, buffer, deadline)));
+        try {
+            for (Future<Void> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished.set(true);
+        } catch (ExecutionException e) {
+            finished.set(true); // stops the other workers
+            if (e.getCause() instanceof OutOfMemoryError) throw (OutOfMemoryError) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        solveTime = System.nanoTime() - start;
+        for (int w = 0; w < workers; w++) {
+            loadTime = Math.max(loadTime, loadTimes[w]);
+            ISolver solver = solvers.get(w);
+            if (solver == null) continue;
+            conflicts += SolveMetrics.stat(solver, "conflicts");
+            decisions += SolveMetrics.stat(solver, "decisions");
+            propagations += SolveMetrics.stat(solver, "propagations");
+        }
+        if (model != null) {
+            result = encoder.decode(model);
+            status = SudokuVerifier.isSolution(grid, result) ? SolveResult.SAT : SolveResult.INCORRECT;
+        } else if (refuted.get() == cubes.size()) {
+            status = SolveResult.UNSAT;
+        } else {
+            status = SolveResult.TIMEOUT;
+        }
+    }
+
+    private Callable<Void> worker(final int w, final ClauseBuffer buffer, final long deadline) {
+        return new Callable<Void>() {
+            public Void call() {
+                try {
+                    work(w, buffer, deadline);
+                } catch (Throwable t) {
+                    // solve() joins the workers in order, so stop the others here rather than there
+                    finished.set(true);
+                    throw t;
+                }
+                return null;
+            }
+        };
+    }
+
+    private void work(int w, ClauseBuffer buffer, long deadline) {
+        long start = System.nanoTime();
+        ISolver solver = SolverConfig.create(options.configFor(encoder.name(), matrixSize));
+        SolverSink sink = new SolverSink(solver);
+        try {
+            buffer.replayTo(sink);
+        } catch (ContradictionException e) {
+            // the formula is unsatisfiable without any cube
+            refuted.set(cubes.size());
+            finished.set(true);
+            return;
+        }
+        sink.newVars(nVars);
+        SearchCancellation.attach(solver, finished);
+        solvers.set(w, solver);
+        loadTimes[w] = System.nanoTime() - start;
+        VecInt assumptions = new VecInt();
+        for (int c = next.getAndIncrement(); c < cubes.size() && !finished.get();
+             c = next.getAndIncrement()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) break;
+            solver.setTimeout((int) Math.max(left / 1000000000L, 1));
+            if (!assume(cubes.get(c), assumptions)) {
+                refuted.incrementAndGet(); // a value the reduced encoding already ruled out
+                continue;
+            }
+            try {
+                if (!solver.isSatisfiable(assumptions)) {
+                    refuted.incrementAndGet();
+                } else if (finished.compareAndSet(false, true)) {
+                    model = solver.model();
+                }
+            } catch (TimeoutException e) {
+                break;
+            } catch (CancellationException e) {
+                SearchCancellation.stopped(solver); // another cube was satisfied
+                break;
+            }
+        }
+    }
+
+    // false when a cell of the cube has no literal for its value
+    private boolean assume(int[] cube, VecInt assumptions) {
+        assumptions.clear();
+        for (int p = 0; p < cells.length; p++) {
+            for (int literal : encoder.valueLiterals(cells[p] / matrixSize, cells[p] % matrixSize, cube[p])) {
+                if (literal == 0) return false;
+                assumptions.push(literal);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+package sudoku_solver;
+
+// Solves a sudoku as an exact-cover problem with Knuth's Algorithm X on dancing links,
+// without sat4j. Columns are the cell, row-value, column-value and block-value
+// constraints the givens leave open; rows (options) are the (cell, value) candidates
+// that no given rules out. The links are parallel int arrays indexed by node instead
+// of node objects: node 0 is the root, 1..columns the column headers, the rest the
+// option nodes. The search is iterative, branches on the column with the fewest
+// options and gives up at the deadline.
+public class DancingLinks {
+    public static final String NAME = "DLX";
+
+    public int matrixSize;
+    public String status;
+    public int options = 0; // rows of the exact-cover matrix
+    public int columns = 0; // constraints left open by the givens
+    public long choices = 0; // options tried
+    public long backtracks = 0; // choices undone after a dead end
+    private int[][] givens;
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column; // node -> its column header
+    private int[] option; // node -> its option
+    private int[] size; // column header -> options still in it
+    private int[] optionCell;
+    private int[] optionValue;
+    private int[] chosen; // option node chosen at each depth of the search
+    private int depth = 0;
+
+    public static SolveResult run(int[][] grid, SolverOptions solverOptions) {
+        long start = System.nanoTime();
+        int[][] search = grid;
+        if (solverOptions.propagate) {
+            Propagator propagation = Propagator.run(grid);
+            SolveResult settled = SolveResult.propagated(propagation, grid, start);
+            if (settled != null) return settled;
+            search = propagation.grid;
+        }
+        DancingLinks links = new DancingLinks(search);
+        links.solve(start + solverOptions.exactCoverTimeout * 1000000000L);
+        SolveResult run = new SolveResult();
+        run.encoding = NAME;
+        run.status = links.status;
+        if (run.status.equals(SolveResult.SAT)) {
+            run.result = links.solution();
+            if (!SudokuVerifier.isSolution(grid, run.result)) run.status = SolveResult.INCORRECT;
+        }
+        run.nVars = links.options;
+        run.nClauses = links.columns;
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+
+    public DancingLinks(int[][] grid) {
+        int n = grid.length;
+        int blockSize = (int) Math.sqrt(n);
+        boolean hasBlocks = blockSize * blockSize == n;
+        int types = hasBlocks ? 4 : 3;
+        this.matrixSize = n;
+        this.givens = grid;
+
+        // constraints already satisfied by a given, and the header of every open one
+        boolean[] satisfied = new boolean[types * n * n];
+        int open = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (grid[i][j] == 0) {
+                    open++;
+                    continue;
+                }
+                int k = grid[i][j] - 1;
+                for (int t = 0; t < types; t++) {
+                    int c = constraint(t, i, j, k, blockSize);
+                    if (t > 0 && satisfied[c]) status = SolveResult.UNSAT; // a value given twice in a unit
+                    satisfied[c] = true;
+                }
+            }
+        }
+        int[] header = new int[types * n * n];
+        for (int c = 0; c < header.length; c++) {
+            if (!satisfied[c]) header[c] = ++columns;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (grid[i][j] != 0) continue;
+                for (int k = 0; k < n; k++) {
+                    if (fits(satisfied, types, i, j, k, blockSize)) options++;
+                }
+            }
+        }
+
+        int nodes = 1 + columns + options * types;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        option = new int[nodes];
+        size = new int[1 + columns];
+        optionCell = new int[options];
+        optionValue = new int[options];
+        chosen = new int[open];
+        for (int h = 0; h <= columns; h++) {
+            left[h] = h == 0 ? columns : h - 1;
+            right[h] = h == columns ? 0 : h + 1;
+            up[h] = h;
+            down[h] = h;
+        }
+        int node = columns + 1;
+        int row = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (grid[i][j] != 0) continue;
+                for (int k = 0; k < n; k++) {
+                    if (!fits(satisfied, types, i, j, k, blockSize)) continue;
+                    optionCell[row] = i * n + j;
+                    optionValue[row] = k + 1;
+                    int first = node;
+                    for (int t = 0; t < types; t++, node++) {
+                        int h = header[constraint(t, i, j, k, blockSize)];
+                        column[node] = h;
+                        option[node] = row;
+                        up[node] = up[h];
+                        down[node] = h;
+                        down[up[h]] = node;
+                        up[h] = node;
+                        size[h]++;
+                        left[node] = t == 0 ? first + types - 1 : node - 1;
+                        right[node] = t == types - 1 ? first : node + 1;
+                    }
+                    row++;
+                }
+            }
+        }
+    }
+
+    // index of the t-th constraint (cell, row-value, column-value, block-value) of (i, j) = k
+    private int constraint(int t, int i, int j, int k, int blockSize) {
+        int n = matrixSize;
+        switch (t) {
+            case 0:
+                return i * n + j;
+            case 1:
+                return n * n + i * n + k;
+            case 2:
+                return 2 * n * n + j * n + k;
+            default:
+                return 3 * n * n + ((i / blockSize) * blockSize + j / blockSize) * n + k;
+        }
+    }
+
+    private boolean fits(boolean[] satisfied, int types, int i, int j, int k, int blockSize) {
+        for (int t = 1; t < types; t++) {
+            if (satisfied[constraint(t, i, j, k, blockSize)]) return false;
+        }
+        return true;
+    }
+
+    // status becomes SAT, UNSAT or TIMEOUT (deadline in System.nanoTime() terms)
+    public void solve(long deadline) {
+        if (status != null) return;
+        long steps = 0;
+        search:
+        while (true) {
+            if (right[0] == 0) {
+                status = SolveResult.SAT;
+                return;
+            }
+            if ((++steps & 1023) == 0 && System.nanoTime() > deadline) {
+                status = SolveResult.TIMEOUT;
+                return;
+            }
+            int best = right[0];
+            for (int h = right[best]; h != 0 && size[best] > 1; h = right[h]) {
+                if (size[h] < size[best]) best = h;
+            }
+            if (size[best] > 0) {
+                cover(best);
+                choices++;
+                chosen[depth++] = down[best];
+                coverOthers(down[best]);
+                continue;
+            }
+            // dead end: move the deepest choice to the next option of its column
+            while (depth > 0) {
+                backtracks++;
+                int node = chosen[--depth];
+                uncoverOthers(node);
+                int h = column[node];
+                if (down[node] != h) {
+                    choices++;
+                    chosen[depth++] = down[node];
+                    coverOthers(down[node]);
+                    continue search;
+                }
+                uncover(h);
+            }
+            status = SolveResult.UNSAT;
+            return;
+        }
+    }
+
+    // the givens with the values of the chosen options filled in
+    public int[][] solution() {
+        int n = matrixSize;
+        int[][] grid = new int[n][];
+        for (int i = 0; i < n; i++) grid[i] = givens[i].clone();
+        for (int d = 0; d < depth; d++) {
+            int row = option[chosen[d]];
+            grid[optionCell[row] / n][optionCell[row] % n] = optionValue[row];
+        }
+        return grid;
+    }
+
+    private void cover(int h) {
+        right[left[h]] = right[h];
+        left[right[h]] = left[h];
+        for (int i = down[h]; i != h; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int h) {
+        for (int i = up[h]; i != h; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[h]] = h;
+        left[right[h]] = h;
+    }
+
+    private void coverOthers(int node) {
+        for (int j = right[node]; j != node; j = right[j]) cover(column[j]);
+    }
+
+    private void uncoverOthers(int node) {
+        for (int j = left[node]; j != node; j = left[j]) uncover(column[j]);
+    }
+}
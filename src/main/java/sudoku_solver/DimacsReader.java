@@ -0,0 +1,120 @@
+package sudoku_solver;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+// Loads a DIMACS .cnf file into a ClauseSink (usually a SolverSink around an ISolver).
+// The file is read through a FileChannel in large chunks and the literals are parsed
+// straight from the bytes, reusing one clause array. A "c sudoku <size>" comment written
+// by the export mode records which puzzle size the direct variables belong to.
+public class DimacsReader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    public int variables = 0;
+    public int declaredClauses = 0;
+    public int clauses = 0;
+    public int matrixSize = 0;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private int[] clause = new int[64];
+
+    public static DimacsReader load(File file, ISolver solver) throws IOException, ContradictionException {
+        DimacsReader reader = new DimacsReader();
+        reader.read(file, new SolverSink(solver));
+        return reader;
+    }
+
+    public void read(File file, ClauseSink sink) throws IOException, ContradictionException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            channel = in.getChannel();
+            buffer.clear().flip();
+            parse(sink);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void parse(ClauseSink sink) throws IOException, ContradictionException {
+        int length = 0;
+        int b;
+        while ((b = next()) != -1) {
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') continue;
+            if (b == 'c' && length == 0) {
+                comment();
+            } else if (b == 'p' && length == 0) {
+                word("cnf");
+                variables = number(next());
+                declaredClauses = number(next());
+                sink.newVars(variables);
+            } else {
+                int literal = number(b);
+                if (literal == 0) {
+                    sink.addClause(clause, length);
+                    clauses++;
+                    length = 0;
+                } else {
+                    if (length == clause.length) clause = Arrays.copyOf(clause, 2 * length);
+                    clause[length++] = literal;
+                    if (Math.abs(literal) > variables) {
+                        variables = Math.abs(literal);
+                        sink.newVars(variables);
+                    }
+                }
+            }
+        }
+        if (length > 0) throw new EOFException("clause not terminated by 0");
+    }
+
+    private void comment() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = next()) != -1 && b != '\n') {
+            if (line.length() < 80) line.append((char) b);
+        }
+        String[] words = line.toString().trim().split("\\s+");
+        if (words.length >= 2 && words[0].equals("sudoku")) matrixSize = Integer.parseInt(words[1]);
+    }
+
+    private void word(String expected) throws IOException {
+        int b = next();
+        while (b == ' ') b = next();
+        for (int i = 0; i < expected.length(); i++, b = next()) {
+            if (b != expected.charAt(i)) throw new IOException("expected \"p " + expected + "\" header");
+        }
+    }
+
+    // parses the number starting at (or after blanks before) byte b and consumes one byte past it
+    private int number(int b) throws IOException {
+        while (b == ' ' || b == '\t') b = next();
+        boolean negative = b == '-';
+        if (negative) b = next();
+        if (b < '0' || b > '9') throw new IOException("unexpected character '" + (char) b + "'");
+        int value = 0;
+        do {
+            value = value * 10 + (b - '0');
+            b = next();
+        } while (b >= '0' && b <= '9');
+        return negative ? -value : value;
+    }
+
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) return -1;
+        }
+        return buffer.get() & 0xff; // a signed 0xff would read as the -1 that ends the file
+    }
+}
@@ -0,0 +1,107 @@
+package sudoku_solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Streams the clauses to a DIMACS .cnf file as they are generated. Literals are formatted
+// straight into a large byte buffer that is flushed through a FileChannel, so no String is
+// built per clause. The counts are only known at the end, so a fixed-width "p cnf" line is
+// reserved first and filled in by close(). An optional comment goes in front of it.
+public class DimacsSink implements ClauseSink {
+    private static final int HEADER_WIDTH = 40;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private byte[] digits = new byte[11];
+    private long headerPosition;
+    private int variables = 0;
+    private int count = 0;
+
+    public DimacsSink(File file) throws IOException {
+        this(file, null);
+    }
+
+    public DimacsSink(File file, String comment) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        if (comment != null) buffer.put(("c " + comment + "\n").getBytes("US-ASCII"));
+        headerPosition = buffer.position();
+        buffer.put(header());
+    }
+
+    public void addClause(int[] literals, int length) {
+        if (buffer.remaining() < 12 * (length + 1)) flush();
+        for (int i = 0; i < length; i++) {
+            putInt(literals[i]);
+            buffer.put((byte) ' ');
+        }
+        buffer.put((byte) '0');
+        buffer.put((byte) '\n');
+        count++;
+    }
+
+    public void addBinary(int a, int b) {
+        if (buffer.remaining() < 36) flush();
+        putInt(a);
+        buffer.put((byte) ' ');
+        putInt(b);
+        buffer.put((byte) ' ');
+        buffer.put((byte) '0');
+        buffer.put((byte) '\n');
+        count++;
+    }
+
+    public void newVars(int count) {
+        variables = count;
+    }
+
+    public int nClauses() {
+        return count;
+    }
+
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.write(ByteBuffer.wrap(header()), headerPosition);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            file.close();
+        }
+    }
+
+    private void putInt(int value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int p = digits.length;
+        do {
+            digits[--p] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, p, digits.length - p);
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private byte[] header() {
+        StringBuilder line = new StringBuilder("p cnf " + variables + " " + count);
+        while (line.length() < HEADER_WIDTH - 1) line.append(' ');
+        return line.append('\n').toString().getBytes();
+    }
+}
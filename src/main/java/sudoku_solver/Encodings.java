@@ -0,0 +1,32 @@
+package sudoku_solver;
+
+import java.util.Arrays;
+
+// Creates the encodings by the names used in the summary columns. ALL are the standalone
+// encodings; "Mixed" picks one of them per unit and "Auto" one of everything per puzzle.
+public class Encodings {
+    public static final String[] ALL = {"Bionomial", "Binary", "Sequential", "Cardinality", "Commander", "Product",
+            "Log"};
+    // only run when options.encodings names them: Log times out on the bundled 25x25 input and the
+    // budget skips it from 36x36 up
+    public static final String[] OPT_IN = {"Log"};
+
+    // whether name may stand in for another encoding, as a Budget redirect does
+    public static boolean offered(String name, SolverOptions options) {
+        if (!Arrays.asList(OPT_IN).contains(name)) return true;
+        return Arrays.asList(options.encodings).contains(name);
+    }
+
+    public static SudokuEncoder create(String name, int matrixSize, SolverOptions options) {
+        if (name.equals("Bionomial")) return new BionomialSolver(matrixSize, options);
+        if (name.equals("Binary")) return new BinarySolver(matrixSize, options);
+        if (name.equals("Sequential")) return new SequentialCounterSolver(matrixSize, options);
+        if (name.equals("Cardinality")) return new CardinalitySolver(matrixSize, options);
+        if (name.equals("Commander")) return new CommanderSolver(matrixSize, options);
+        if (name.equals("Product")) return new ProductSolver(matrixSize, options);
+        if (name.equals("Log")) return new LogSolver(matrixSize, options);
+        if (name.equals("Mixed")) return new MixedEncoder(matrixSize, options);
+        if (name.equals("Auto")) return new AutoEncoder(matrixSize, options);
+        throw new IllegalArgumentException("unknown encoding: " + name);
+    }
+}
@@ -0,0 +1,38 @@
+package sudoku_solver;
+
+import java.util.Arrays;
+
+// Collects latencies (ns) in a growable long[] and reports percentiles.
+public class LatencyStats {
+    private long[] values = new long[1024];
+    private int count = 0;
+
+    public void add(long nanos) {
+        if (count == values.length) values = Arrays.copyOf(values, count * 2);
+        values[count++] = nanos;
+    }
+
+    public void addAll(LatencyStats other) {
+        for (int i = 0; i < other.count; i++) add(other.values[i]);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // nearest-rank percentile, p in (0, 100]
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    public long mean() {
+        if (count == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < count; i++) total += values[i];
+        return total / count;
+    }
+}
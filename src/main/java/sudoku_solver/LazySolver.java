@@ -0,0 +1,158 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// Counterexample-guided encoding for the largest grids. The solver starts from the givens and
+// the cell and row units only (UnitEncoder.encodeLazily); every model is decoded and, for each
+// value a column or block holds twice, the binary clause against each pair of cells holding it
+// is added to the same ISolver, which keeps what it learned, before searching again. Pairs no
+// model puts together are never encoded, and an added pair cannot come back. With the cell and
+// row units exact, a model that breaks no pair is a solution.
+public class LazySolver {
+    public UnitEncoder encoder;
+    public ISolver solver;
+    public String status;
+    public int[][] result;
+    public int rounds = 0; // searches
+    public int addedPairs = 0;
+    public int nVars = 0;
+    public int nClauses = 0;
+    public long encodeTime = 0; // ns, the cell and row units
+    public long solveTime = 0; // ns, all searches
+    public long refineTime = 0; // ns, checking the models and adding pairs
+
+    private int[][] grid;
+    private int[][] search;
+    private SolverOptions options;
+    private SolverSink sink;
+
+    // grid for verification, search what is encoded (grid plus whatever propagation deduced)
+    public LazySolver(UnitEncoder encoder, int[][] grid, int[][] search, SolverOptions options) {
+        this.encoder = encoder;
+        this.grid = grid;
+        this.search = search;
+        this.options = options;
+        this.solver = SolverConfig.create(options.configFor(encoder.name(), grid.length));
+        this.sink = new SolverSink(solver);
+    }
+
+    public static SolveResult run(UnitEncoder encoder, int[][] grid, SolverOptions options) {
+        long start = System.nanoTime();
+        int[][] search = grid;
+        if (options.propagate) {
+            Propagator propagation = Propagator.run(grid);
+            SolveResult settled = SolveResult.propagated(propagation, grid, start);
+            if (settled != null) return settled;
+            search = propagation.grid;
+        }
+        LazySolver lazy = new LazySolver(encoder, grid, search, options);
+        lazy.solve();
+        SolveResult run = new SolveResult();
+        run.encoding = encoder.name();
+        run.status = lazy.status;
+        run.result = lazy.result;
+        run.nVars = lazy.nVars;
+        run.nClauses = lazy.nClauses;
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+
+    public void solve() {
+        long deadline = System.nanoTime() + options.timeout * 1000000000L;
+        try {
+            long start = System.nanoTime();
+            encoder.encodeLazily(search, sink);
+            encodeTime = System.nanoTime() - start;
+            while (true) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) throw new TimeoutException();
+                solver.setTimeout((int) Math.max(left / 1000000000L, 1));
+                start = System.nanoTime();
+                rounds++;
+                boolean sat;
+                try {
+                    sat = solver.isSatisfiable();
+                } finally {
+                    solveTime += System.nanoTime() - start;
+                }
+                if (!sat) {
+                    status = SolveResult.UNSAT;
+                    break;
+                }
+                start = System.nanoTime();
+                int[][] model = encoder.decode(solver.model());
+                int added = addBroken(model);
+                refineTime += System.nanoTime() - start;
+                if (added == 0) {
+                    result = model;
+                    status = SudokuVerifier.isSolution(grid, result) ? SolveResult.SAT : SolveResult.INCORRECT;
+                    break;
+                }
+                addedPairs += added;
+            }
+        } catch (ContradictionException e) {
+            status = SolveResult.UNSAT;
+        } catch (TimeoutException e) {
+            status = SolveResult.TIMEOUT;
+        }
+        nVars = encoder.nVars();
+        nClauses = sink.nClauses();
+    }
+
+    // adds the clause against every pair of cells that holds one value twice in a column or block
+    // of model, returns how many
+    private int addBroken(int[][] model) throws ContradictionException {
+        int n = model.length;
+        int blockSize = encoder.blockSize;
+        boolean hasBlocks = encoder.units.hasBlocks;
+        int[] columns = new int[n * n]; // cells holding value k in column j, by j * n + k - 1
+        int[] blocks = new int[n * n]; // cells holding value k in block b, by b * n + k - 1
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int k = model[i][j] - 1;
+                if (k < 0) continue;
+                columns[j * n + k]++;
+                if (hasBlocks) blocks[((i / blockSize) * blockSize + j / blockSize) * n + k]++;
+            }
+        }
+        int added = 0;
+        int[] cells = new int[n]; // i * n + j of the cells holding the value
+        for (int u = 0; u < n * n; u++) {
+            int k = u % n + 1;
+            if (columns[u] > 1) {
+                int count = 0;
+                for (int i = 0; i < n; i++) {
+                    if (model[i][u / n] == k) cells[count++] = i * n + u / n;
+                }
+                added += excludePairs(cells, count, k);
+            }
+            if (blocks[u] > 1) {
+                int count = 0;
+                int top = (u / n) / blockSize * blockSize;
+                int left = (u / n) % blockSize * blockSize;
+                for (int i = top; i < top + blockSize; i++) {
+                    for (int j = left; j < left + blockSize; j++) {
+                        if (model[i][j] == k) cells[count++] = i * n + j;
+                    }
+                }
+                added += excludePairs(cells, count, k);
+            }
+        }
+        return added;
+    }
+
+    private int excludePairs(int[] cells, int count, int value) throws ContradictionException {
+        int n = grid.length;
+        int[] clause = new int[2];
+        for (int p = 0; p < count; p++) {
+            for (int q = p + 1; q < count; q++) {
+                clause[0] = -encoder.valueLiterals(cells[p] / n, cells[p] % n, value)[0];
+                clause[1] = -encoder.valueLiterals(cells[q] / n, cells[q] % n, value)[0];
+                sink.addClause(clause, 2);
+            }
+        }
+        return count * (count - 1) / 2;
+    }
+}
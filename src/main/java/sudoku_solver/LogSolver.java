@@ -0,0 +1,183 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Log encoding: cell (i, j) holds value - 1 in binary on its own bits bits, so there are only
+// matrixSize^2 * bits variables instead of matrixSize^3 direct ones. Every pair of peers (same
+// row, column or block) gets, for each value, one clause of 2 * bits literals saying they do
+// not both spell it; n distinct values in a unit of n cells is already a permutation, so no
+// at-least-one is needed. When matrixSize is not a power of two, the patterns above
+// matrixSize - 1 are cut off with one clause per zero bit of matrixSize - 1.
+// Reduced mode gives the givens no clauses of their own: a pair with one given keeps only the
+// clause of the given value, over the other cell's bits, and a pair of givens none.
+public class LogSolver implements SudokuEncoder {
+    public int matrixSize;
+    public int blockSize;
+    public boolean hasBlocks;
+    public int bits;
+    public SolverOptions options;
+    private int[][] givens;
+    private int[][] range; // per zero bit of matrixSize - 1: that bit, then the one bits above it
+
+    public LogSolver(int matrixSize, SolverOptions options) {
+        this.matrixSize = matrixSize;
+        this.blockSize = (int) Math.sqrt(matrixSize);
+        this.hasBlocks = matrixSize == blockSize * blockSize;
+        this.options = options;
+        this.bits = 32 - Integer.numberOfLeadingZeros(Math.max(matrixSize - 1, 1));
+        int max = matrixSize - 1;
+        int zeros = bits - Integer.bitCount(max);
+        range = new int[zeros][];
+        for (int b = 0, z = 0; b < bits; b++) {
+            if ((max >> b & 1) != 0) continue;
+            range[z] = new int[1 + Integer.bitCount(max >>> (b + 1))];
+            range[z][0] = b;
+            for (int above = b + 1, p = 1; above < bits; above++) {
+                if ((max >> above & 1) != 0) range[z][p++] = above;
+            }
+            z++;
+        }
+    }
+
+    public String name() {
+        return "Log";
+    }
+
+    // bit b of the value of cell c = i * matrixSize + j
+    private int var(int c, int b) {
+        return c * bits + b + 1;
+    }
+
+    public void encode(int[][] grid, ClauseSink sink) throws ContradictionException {
+        givens = grid;
+        int n = matrixSize;
+        int[] clause = new int[2 * bits];
+        int[] peers = new int[3 * n];
+        for (int c = 0; c < n * n; c++) {
+            int given = grid[c / n][c % n];
+            if (given != 0) {
+                if (options.reduced) continue;
+                for (int b = 0; b < bits; b++) {
+                    clause[0] = (given - 1 >> b & 1) != 0 ? var(c, b) : -var(c, b);
+                    sink.addClause(clause, 1);
+                }
+            }
+            for (int[] cut : range) {
+                for (int p = 0; p < cut.length; p++) clause[p] = -var(c, cut[p]);
+                sink.addClause(clause, cut.length);
+            }
+        }
+        for (int c = 0; c < n * n; c++) {
+            int count = peersAfter(c, peers);
+            int first = grid[c / n][c % n];
+            for (int p = 0; p < count; p++) {
+                int d = peers[p];
+                int second = grid[d / n][d % n];
+                if (options.reduced && first != 0 && second != 0) {
+                    if (first == second) sink.addClause(clause, 0); // the givens clash
+                } else if (options.reduced && (first != 0 || second != 0)) {
+                    differ(first != 0 ? d : c, (first != 0 ? first : second) - 1, clause, 0);
+                    sink.addClause(clause, bits);
+                } else {
+                    for (int value = 0; value < n; value++) {
+                        differ(c, value, clause, 0);
+                        differ(d, value, clause, bits);
+                        sink.addClause(clause, 2 * bits);
+                    }
+                }
+            }
+        }
+        sink.newVars(nVars());
+    }
+
+    // the literals saying cell c does not hold value (0-based), into clause[from .. from + bits)
+    private void differ(int c, int value, int[] clause, int from) {
+        for (int b = 0; b < bits; b++) {
+            clause[from + b] = (value >> b & 1) != 0 ? -var(c, b) : var(c, b);
+        }
+    }
+
+    // peers of cell c with a higher index, so every pair is visited once
+    private int peersAfter(int c, int[] buffer) {
+        int n = matrixSize;
+        int i = c / n;
+        int j = c % n;
+        int count = 0;
+        for (int other = j + 1; other < n; other++) buffer[count++] = i * n + other;
+        for (int other = i + 1; other < n; other++) buffer[count++] = other * n + j;
+        if (hasBlocks) {
+            int startI = (i / blockSize) * blockSize;
+            int startJ = (j / blockSize) * blockSize;
+            for (int bi = i + 1; bi < startI + blockSize; bi++) {
+                for (int bj = startJ; bj < startJ + blockSize; bj++) {
+                    if (bj != j) buffer[count++] = bi * n + bj;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int nVars() {
+        return matrixSize * matrixSize * bits;
+    }
+
+    // sat4j leaves variables that occur in no clause, like the bits of reduced-mode givens,
+    // out of the model, so it is read by literal rather than by position
+    public int[][] decode(int[] model) {
+        int n = matrixSize;
+        int[][] result = new int[n][n];
+        for (int literal : model) {
+            if (literal <= 0 || literal > nVars()) continue;
+            int c = (literal - 1) / bits;
+            result[c / n][c % n] |= 1 << (literal - 1) % bits;
+        }
+        for (int c = 0; c < n * n; c++) {
+            int given = givens[c / n][c % n];
+            result[c / n][c % n] = given != 0 ? given : result[c / n][c % n] + 1;
+        }
+        return result;
+    }
+
+    public int[] valueLiterals(int i, int j, int value) {
+        int[] literals = new int[bits];
+        differ(i * matrixSize + j, value - 1, literals, 0);
+        for (int b = 0; b < bits; b++) literals[b] = -literals[b];
+        return literals;
+    }
+
+    // walks the same cells and pairs as encode, counting instead of emitting; sat4j keeps what
+    // reduced mode emits in either mode, as the givens satisfy every other clause of their cells
+    // and pairs
+    public SizeEstimate estimate(int[][] grid) {
+        int n = matrixSize;
+        SizeEstimate estimate = new SizeEstimate(name(), nVars());
+        int[] peers = new int[3 * n];
+        for (int c = 0; c < n * n; c++) {
+            boolean given = grid[c / n][c % n] != 0;
+            if (given && options.reduced) continue;
+            if (given) estimate.add(bits, 0, 1, 0, 1);
+            for (int[] cut : range) {
+                estimate.add(1, 0, 1, cut.length == 2 ? 1 : 0, cut.length);
+                if (!given && cut.length > 1) estimate.keep(1, cut.length == 2 ? 1 : 0, cut.length);
+            }
+        }
+        for (int c = 0; c < n * n; c++) {
+            int count = peersAfter(c, peers);
+            int first = grid[c / n][c % n];
+            for (int p = 0; p < count; p++) {
+                int second = grid[peers[p] / n][peers[p] % n];
+                int givenCells = (first != 0 ? 1 : 0) + (second != 0 ? 1 : 0);
+                if (!options.reduced || givenCells == 0) {
+                    estimate.add(n, 0, 1, bits == 1 ? 1 : 0, 2 * bits);
+                } else if (givenCells == 2) {
+                    if (first == second) estimate.add(1, 0, 1, 0, 0);
+                } else {
+                    estimate.add(1, 0, 1, bits == 2 ? 1 : 0, bits);
+                }
+                if (givenCells == 0) estimate.keep(n, bits == 1 ? 1 : 0, 2 * bits);
+                else if (givenCells == 1 && bits > 1) estimate.keep(1, bits == 2 ? 1 : 0, bits);
+            }
+        }
+        return estimate;
+    }
+}
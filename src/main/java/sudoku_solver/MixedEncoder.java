@@ -0,0 +1,58 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Encodes every unit with whichever of the pairwise (Bionomial), binary and sequential
+// counter at-most-one constraints the SizeEstimate cost model rates cheapest for its
+// length. In full mode every unit has matrixSize literals and this is just the cheapest
+// single encoding; in reduced mode short units go pairwise and long ones binary.
+public class MixedEncoder extends UnitEncoder {
+    private UnitEncoder[] techniques;
+    private UnitEncoder[] byLength; // technique chosen for each unit length 0..matrixSize
+
+    public MixedEncoder(int matrixSize, SolverOptions options) {
+        super(matrixSize, options);
+        techniques = new UnitEncoder[]{
+                new BionomialSolver(matrixSize, options),
+                new BinarySolver(matrixSize, options),
+                new SequentialCounterSolver(matrixSize, options)
+        };
+        byLength = new UnitEncoder[matrixSize + 1];
+        for (int length = 0; length <= matrixSize; length++) {
+            double best = Double.MAX_VALUE;
+            for (UnitEncoder technique : techniques) {
+                double cost = SizeEstimate.cost(technique.auxVars(length), technique.binaryClauses(length),
+                        technique.literals(length));
+                if (cost < best) {
+                    best = cost;
+                    byLength[length] = technique;
+                }
+            }
+        }
+    }
+
+    public String name() {
+        return "Mixed";
+    }
+
+    protected int auxVars(int length) {
+        return byLength[length].auxVars(length);
+    }
+
+    protected long clauses(int length) {
+        return byLength[length].clauses(length);
+    }
+
+    protected long binaryClauses(int length) {
+        return byLength[length].binaryClauses(length);
+    }
+
+    protected long literals(int length) {
+        return byLength[length].literals(length);
+    }
+
+    protected void atMostOne(int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException {
+        byLength[length].atMostOne(literals, length, firstAux, sink);
+    }
+}
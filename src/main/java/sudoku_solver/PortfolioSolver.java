@@ -0,0 +1,209 @@
+package sudoku_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+// Races every encoding of options.encodings (but DLX, which has no formula) under every configured
+// sat4j configuration on its own thread and keeps the first definite answer, a model only once
+// SudokuVerifier accepts its grid. The other entrants are stopped by a SearchCancellation (or,
+// while they are still encoding, by their sink) and each entrant's outcome is kept for tuning.
+public class PortfolioSolver {
+    public String[] entrants;
+    public String[] outcomes;
+    public String winner = "none";
+    public boolean satisfiable = false;
+    public int[][] result;
+    public int nVars = 0;
+    public int nConstraints = 0;
+    public long executionTime; // ms from the start of the race to the first answer
+
+    private AtomicBoolean finished = new AtomicBoolean(false);
+    private int timeout;
+
+    PortfolioSolver(int[][] grid, SolverOptions options) {
+        final List<SudokuEncoder> encoders = new ArrayList<SudokuEncoder>();
+        final List<String> configs = new ArrayList<String>();
+        for (String config : options.portfolioConfigs) {
+            for (String name : options.encodings) {
+                if (name.equals(DancingLinks.NAME)) continue;
+                encoders.add(Encodings.create(name, grid.length, options));
+                configs.add(config);
+            }
+        }
+        int count = encoders.size();
+        entrants = new String[count];
+        outcomes = new String[count];
+        boolean[] skipped = new boolean[count];
+        int running = 0;
+        for (int i = 0; i < count; i++) {
+            entrants[i] = encoders.get(i).name() + "/" + configs.get(i);
+            outcomes[i] = "not finished";
+            String note = Budget.exceeds(encoders.get(i).estimate(grid), options);
+            if (note != null) {
+                outcomes[i] = "skipped: " + note;
+                skipped[i] = true;
+            } else {
+                running++;
+            }
+        }
+        timeout = options.timeout;
+        result = new int[grid.length][grid.length];
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(count, 1), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "portfolio");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<Integer>(pool);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            futures.add(skipped[i] ? null : completion.submit(entrant(i, encoders.get(i), configs.get(i), grid)));
+        }
+        try {
+            for (int done = 0; done < running && !finished.get(); done++) {
+                Future<Integer> future = completion.take();
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    recordFailure(futures.indexOf(future), e.getCause());
+                }
+            }
+            executionTime = System.currentTimeMillis() - startTime;
+            stopAll(futures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopAll(futures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Callable<Integer> entrant(final int i, final SudokuEncoder encoder, final String config,
+                                      final int[][] grid) {
+        return new Callable<Integer>() {
+            public Integer call() throws Exception {
+                ISolver solver = SolverConfig.create(config);
+                solver.setTimeout(timeout);
+                SearchCancellation.attach(solver, finished);
+                long start = System.currentTimeMillis();
+                boolean searching = false;
+                boolean sat;
+                try {
+                    encoder.encode(grid, new CancellableSink(new SolverSink(solver), finished));
+                    if (finished.get()) throw new CancellationException();
+                    searching = true;
+                    sat = solver.isSatisfiable();
+                } catch (ContradictionException e) {
+                    sat = false;
+                } catch (org.sat4j.specs.TimeoutException e) {
+                    outcomes[i] = "timed out";
+                    return i;
+                } catch (CancellationException e) {
+                    if (!searching) {
+                        outcomes[i] = "stopped while encoding";
+                        throw e;
+                    }
+                    SearchCancellation.stopped(solver);
+                    outcomes[i] = "stopped";
+                    return i;
+                }
+                long time = System.currentTimeMillis() - start;
+                int[][] decoded = sat ? encoder.decode(solver.model()) : null;
+                if (sat && !SudokuVerifier.isSolution(grid, decoded)) {
+                    outcomes[i] = "incorrect (" + time + " ms)"; // leaves the race to the others
+                    return i;
+                }
+                if (!finished.compareAndSet(false, true)) {
+                    outcomes[i] = "finished late (" + time + " ms)";
+                    return i;
+                }
+                winner = entrants[i];
+                satisfiable = sat;
+                if (sat) result = decoded;
+                nVars = solver.nVars();
+                nConstraints = solver.nConstraints();
+                outcomes[i] = "won (" + time + " ms)";
+                return i;
+            }
+        };
+    }
+
+    // the losers see the flag at their next clause, decision or conflict and return
+    private void stopAll(List<Future<Integer>> futures) {
+        finished.set(true);
+        for (int f = 0; f < futures.size(); f++) {
+            Future<Integer> future = futures.get(f);
+            if (future == null) continue;
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                recordFailure(f, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void recordFailure(int i, Throwable cause) {
+        if (cause instanceof OutOfMemoryError) outcomes[i] = "out of memory";
+        else if (!(cause instanceof CancellationException)) outcomes[i] = "failed: " + cause;
+    }
+
+    // gives up encoding with a CancellationException once another entrant has answered
+    private static class CancellableSink implements ClauseSink {
+        private ClauseSink sink;
+        private AtomicBoolean finished;
+        private int sinceCheck = 0;
+
+        CancellableSink(ClauseSink sink, AtomicBoolean finished) {
+            this.sink = sink;
+            this.finished = finished;
+        }
+
+        public void addClause(int[] literals, int length) throws ContradictionException {
+            check();
+            sink.addClause(literals, length);
+        }
+
+        public void addBinary(int a, int b) throws ContradictionException {
+            check();
+            sink.addBinary(a, b);
+        }
+
+        public void addAtMostOne(int[] literals, int length) throws ContradictionException {
+            check();
+            sink.addAtMostOne(literals, length);
+        }
+
+        public void newVars(int count) {
+            sink.newVars(count);
+        }
+
+        public int nClauses() {
+            return sink.nClauses();
+        }
+
+        private void check() {
+            if (++sinceCheck == 4096) {
+                sinceCheck = 0;
+                if (finished.get()) throw new CancellationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// Product encoding (Chen) of at-most-one: the literals of a unit are laid out row by row on a
+// grid of about sqrt(length) x sqrt(length), every literal implies the variable of its row and
+// the one of its column, and the row and column variables get an at-most-one of their own,
+// recursively. Two true literals differ in their row or their column, so they break one of
+// those. That is about 2 * length + O(sqrt(length)) binary clauses per unit, block units
+// included, where pairwise needs length * (length - 1) / 2.
+public class ProductSolver extends UnitEncoder {
+    // units this short get plain pairwise AMO
+    static final int PAIRWISE_LIMIT = 4;
+    private CountingSink[] sizes;
+
+    public ProductSolver(int matrixSize, SolverOptions options) {
+        super(matrixSize, options);
+        this.sizes = countedSizes();
+    }
+
+    public String name() {
+        return "Product";
+    }
+
+    protected int auxVars(int length) {
+        return sizes[length].variables;
+    }
+
+    protected long clauses(int length) {
+        return sizes[length].clauses;
+    }
+
+    protected long binaryClauses(int length) {
+        return sizes[length].binaryClauses;
+    }
+
+    protected long literals(int length) {
+        return sizes[length].literals;
+    }
+
+    protected void atMostOne(int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException {
+        product(literals, length, firstAux, sink);
+    }
+
+    // returns the next unused variable
+    private int product(int[] literals, int length, int nextAux, ClauseSink sink) throws ContradictionException {
+        if (length <= PAIRWISE_LIMIT) {
+            pairwise(literals, 0, length, sink);
+            return nextAux;
+        }
+        int columns = (int) Math.ceil(Math.sqrt(length));
+        int[] rowVars = new int[(length + columns - 1) / columns];
+        int[] columnVars = new int[columns];
+        for (int r = 0; r < rowVars.length; r++) rowVars[r] = nextAux++;
+        for (int c = 0; c < columns; c++) columnVars[c] = nextAux++;
+        for (int p = 0; p < length; p++) {
+            sink.addBinary(-literals[p], rowVars[p / columns]);
+            sink.addBinary(-literals[p], columnVars[p % columns]);
+        }
+        nextAux = product(rowVars, rowVars.length, nextAux, sink);
+        return product(columnVars, columns, nextAux, sink);
+    }
+}
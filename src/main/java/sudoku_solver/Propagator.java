@@ -0,0 +1,307 @@
+package sudoku_solver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Constraint propagation on a primitive candidate grid, run before any encoding. Every cell
+// keeps its candidate values as bits in (matrixSize + 63) / 64 longs; units, peers and the
+// block/line intersections are precomputed once per size. Applies naked singles, hidden
+// singles and locked candidates (pointing and claiming) until nothing changes, and ends
+// SOLVED, CONTRADICTION (the puzzle has no solution) or STUCK with the deduced values
+// added to the givens in grid, ready for an encoder.
+public class Propagator {
+    public static final String SOLVED = "SOLVED";
+    public static final String STUCK = "STUCK";
+    public static final String CONTRADICTION = "CONTRADICTION";
+
+    public String status;
+    public int[][] grid;
+    public int assigned = 0; // cells filled by propagation, not counting the givens
+
+    private Layout layout;
+    private int n;
+    private int words;
+    private long[] candidates;
+    private int[] value; // 1-based value of each decided cell, 0 while open
+    private int[] queue; // decided cells whose value still has to be removed from their peers
+    private int head = 0;
+    private int tail = 0;
+    private int decided = 0;
+    private boolean contradiction = false;
+    private long[] once;
+    private long[] twice;
+
+    private static final Map<Integer, Layout> LAYOUTS = new HashMap<Integer, Layout>();
+
+    // cells of every unit, peers of every cell and the block/line intersections of one size
+    private static class Layout {
+        int[][] units;
+        int[][] peers;
+        int[][] intersection; // cells in both a block and a row or column
+        int[][] blockRest; // cells of that block outside the intersection
+        int[][] lineRest; // cells of that row or column outside the intersection
+
+        Layout(int n) {
+            int blockSize = (int) Math.sqrt(n);
+            boolean hasBlocks = blockSize * blockSize == n;
+            units = new int[hasBlocks ? 3 * n : 2 * n][n];
+            for (int a = 0; a < n; a++) {
+                for (int b = 0; b < n; b++) {
+                    units[a][b] = a * n + b;
+                    units[n + a][b] = b * n + a;
+                    if (hasBlocks) {
+                        int i = (a / blockSize) * blockSize + b / blockSize;
+                        int j = (a % blockSize) * blockSize + b % blockSize;
+                        units[2 * n + a][b] = i * n + j;
+                    }
+                }
+            }
+            peers = new int[n * n][];
+            for (int cell = 0; cell < n * n; cell++) {
+                boolean[] peer = new boolean[n * n];
+                int count = 0;
+                for (int[] unit : units) {
+                    if (!contains(unit, cell)) continue;
+                    for (int other : unit) {
+                        if (other != cell && !peer[other]) {
+                            peer[other] = true;
+                            count++;
+                        }
+                    }
+                }
+                peers[cell] = new int[count];
+                for (int other = 0, p = 0; other < n * n; other++) {
+                    if (peer[other]) peers[cell][p++] = other;
+                }
+            }
+            int pairs = hasBlocks ? 2 * n * blockSize : 0;
+            intersection = new int[pairs][];
+            blockRest = new int[pairs][];
+            lineRest = new int[pairs][];
+            int k = 0;
+            for (int block = 0; block < (hasBlocks ? n : 0); block++) {
+                for (int line = 0; line < 2 * n; line++) {
+                    int[] shared = shared(units[2 * n + block], units[line]);
+                    if (shared.length == 0) continue;
+                    intersection[k] = shared;
+                    blockRest[k] = minus(units[2 * n + block], shared);
+                    lineRest[k] = minus(units[line], shared);
+                    k++;
+                }
+            }
+        }
+
+        private static boolean contains(int[] cells, int cell) {
+            for (int c : cells) {
+                if (c == cell) return true;
+            }
+            return false;
+        }
+
+        private static int[] shared(int[] a, int[] b) {
+            int count = 0;
+            for (int c : a) {
+                if (contains(b, c)) count++;
+            }
+            int[] result = new int[count];
+            count = 0;
+            for (int c : a) {
+                if (contains(b, c)) result[count++] = c;
+            }
+            return result;
+        }
+
+        private static int[] minus(int[] a, int[] b) {
+            int[] result = new int[a.length - b.length];
+            int count = 0;
+            for (int c : a) {
+                if (!contains(b, c)) result[count++] = c;
+            }
+            return result;
+        }
+    }
+
+    private static synchronized Layout layout(int n) {
+        Layout layout = LAYOUTS.get(n);
+        if (layout == null) {
+            layout = new Layout(n);
+            LAYOUTS.put(n, layout);
+        }
+        return layout;
+    }
+
+    public static Propagator run(int[][] givens) {
+        Propagator propagator = new Propagator(givens.length);
+        propagator.solve(givens);
+        return propagator;
+    }
+
+    // 1-based values still possible for cell (i, j)
+    public int[] candidates(int i, int j) {
+        int base = (i * n + j) * words;
+        int count = 0;
+        for (int w = 0; w < words; w++) count += Long.bitCount(candidates[base + w]);
+        int[] values = new int[count];
+        for (int k = 0, p = 0; k < n; k++) {
+            if ((candidates[base + (k >>> 6)] & (1L << k)) != 0) values[p++] = k + 1;
+        }
+        return values;
+    }
+
+    private Propagator(int n) {
+        this.n = n;
+        this.layout = layout(n);
+        this.words = (n + 63) >>> 6;
+        this.candidates = new long[n * n * words];
+        this.value = new int[n * n];
+        this.queue = new int[n * n];
+        this.once = new long[words];
+        this.twice = new long[words];
+        for (int cell = 0; cell < n * n; cell++) {
+            for (int w = 0; w < words; w++) candidates[cell * words + w] = fullWord(w);
+        }
+    }
+
+    private long fullWord(int w) {
+        int bits = Math.min(64, n - 64 * w);
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private void solve(int[][] givens) {
+        for (int i = 0; i < n && !contradiction; i++) {
+            for (int j = 0; j < n && !contradiction; j++) {
+                if (givens[i][j] != 0) decide(i * n + j, givens[i][j] - 1);
+            }
+        }
+        int givenCount = decided;
+        boolean changed = true;
+        while (changed && !contradiction) {
+            eliminate();
+            changed = !contradiction && hiddenSingles();
+            if (!changed && !contradiction) changed = lockedCandidates();
+        }
+        assigned = decided - givenCount;
+        grid = new int[n][n];
+        for (int cell = 0; cell < n * n; cell++) grid[cell / n][cell % n] = value[cell];
+        if (contradiction) status = CONTRADICTION;
+        else status = decided == n * n ? SOLVED : STUCK;
+    }
+
+    // fixes cell to the 0-based value k and queues it for elimination
+    private void decide(int cell, int k) {
+        int base = cell * words;
+        if ((candidates[base + (k >>> 6)] & (1L << k)) == 0) {
+            contradiction = true;
+            return;
+        }
+        for (int w = 0; w < words; w++) candidates[base + w] = 0;
+        candidates[base + (k >>> 6)] = 1L << k;
+        if (value[cell] == 0) {
+            value[cell] = k + 1;
+            decided++;
+            queue[tail++] = cell;
+        }
+    }
+
+    // naked singles: removes every decided value from its peers, deciding cells left with one
+    private void eliminate() {
+        while (head < tail && !contradiction) {
+            int cell = queue[head++];
+            int k = value[cell] - 1;
+            int word = k >>> 6;
+            long bit = 1L << k;
+            for (int peer : layout.peers[cell]) {
+                if ((candidates[peer * words + word] & bit) != 0) remove(peer, word, bit);
+                if (contradiction) return;
+            }
+        }
+    }
+
+    private boolean remove(int cell, int word, long mask) {
+        int base = cell * words;
+        if ((candidates[base + word] & mask) == 0) return false;
+        candidates[base + word] &= ~mask;
+        int count = 0;
+        int last = -1;
+        for (int w = 0; w < words; w++) {
+            long bits = candidates[base + w];
+            if (bits != 0) {
+                count += Long.bitCount(bits);
+                last = w * 64 + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        if (count == 0) contradiction = true;
+        else if (count == 1 && value[cell] == 0) decide(cell, last);
+        return true;
+    }
+
+    // a value that fits only one cell of a unit goes there; one that fits none is a contradiction
+    private boolean hiddenSingles() {
+        boolean changed = false;
+        for (int[] unit : layout.units) {
+            for (int w = 0; w < words; w++) {
+                once[w] = 0;
+                twice[w] = 0;
+            }
+            for (int cell : unit) {
+                int base = cell * words;
+                for (int w = 0; w < words; w++) {
+                    twice[w] |= once[w] & candidates[base + w];
+                    once[w] |= candidates[base + w];
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                if (once[w] != fullWord(w)) {
+                    contradiction = true;
+                    return changed;
+                }
+                long single = once[w] & ~twice[w];
+                while (single != 0) {
+                    long bit = single & -single;
+                    single &= single - 1;
+                    for (int cell : unit) {
+                        if ((candidates[cell * words + w] & bit) != 0) {
+                            if (value[cell] == 0) {
+                                decide(cell, w * 64 + Long.numberOfTrailingZeros(bit));
+                                changed = true;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if (changed) {
+                eliminate();
+                if (contradiction) return true;
+            }
+        }
+        return changed;
+    }
+
+    // pointing: values of a block confined to one line leave the rest of that line;
+    // claiming: values of a line confined to one block leave the rest of that block
+    private boolean lockedCandidates() {
+        boolean changed = false;
+        for (int k = 0; k < layout.intersection.length && !contradiction; k++) {
+            for (int w = 0; w < words && !contradiction; w++) {
+                long shared = or(layout.intersection[k], w);
+                if (shared == 0) continue;
+                long pointing = shared & ~or(layout.blockRest[k], w);
+                long claiming = shared & ~or(layout.lineRest[k], w);
+                if (pointing != 0) {
+                    for (int cell : layout.lineRest[k]) changed |= remove(cell, w, pointing);
+                }
+                if (claiming != 0 && !contradiction) {
+                    for (int cell : layout.blockRest[k]) changed |= remove(cell, w, claiming);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private long or(int[] cells, int w) {
+        long bits = 0;
+        for (int cell : cells) bits |= candidates[cell * words + w];
+        return bits;
+    }
+}
@@ -0,0 +1,263 @@
+package sudoku_solver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+// Reads puzzles one after another from a file, straight from the bytes: the file is pulled
+// through an NIO channel in 1 MB chunks, each line is copied once into a reused byte array
+// and parsed there, so no String is made per puzzle or per cell. Gzip files (by their magic
+// bytes) are read through a GZIPInputStream. Each non-blank line that does not start with
+// '#' begins a puzzle in one of these formats, told apart by the line itself:
+//   header    - the input{i}.txt format: the size n, then n * n values on any number of
+//               lines, '.' or 0 for an empty cell
+//   one-line  - n * n characters with no blanks (81 for 9x9), '.' or '0' for an empty cell,
+//               1-9 and then a-z / A-Z (base 36) for the values, up to 35x35
+//   delimited - n * n decimal values on one line separated by ',', ';' or '|', an empty
+//               field, '.' or 0 for an empty cell
+public class PuzzleReader implements Closeable, Iterable<int[][]> {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private ReadableByteChannel channel;
+    private byte[] chunk = new byte[BUFFER_SIZE];
+    private ByteBuffer buffer = ByteBuffer.wrap(chunk);
+    private int chunkPos = 0;
+    private int chunkEnd = 0;
+    private boolean eof = false;
+    private byte[] line = new byte[256];
+    private int lineLength = 0;
+    private int linePos = 0;
+    public long lineNumber = 0;
+
+    public PuzzleReader(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        FileChannel fileChannel = in.getChannel();
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        fileChannel.read(magic);
+        fileChannel.position(0);
+        if (magic.position() == 2 && (magic.get(0) & 0xff) == 0x1f && (magic.get(1) & 0xff) == 0x8b) {
+            channel = Channels.newChannel(new GZIPInputStream(in, 1 << 16));
+        } else {
+            channel = fileChannel;
+        }
+    }
+
+    // next puzzle, or null at the end of the file
+    public int[][] next() throws IOException {
+        // a header-format puzzle may start on the line where the previous one ended
+        while (linePos < lineLength && blank(line[linePos])) linePos++;
+        if (linePos < lineLength) return header();
+        while (readLine()) {
+            int start = 0;
+            int end = lineLength;
+            while (start < end && blank(line[start])) start++;
+            while (end > start && blank(line[end - 1])) end--;
+            if (start == end || line[start] == '#') continue;
+            boolean blanks = false;
+            boolean delimiters = false;
+            for (int p = start; p < end; p++) {
+                if (blank(line[p])) blanks = true;
+                else if (delimiter(line[p])) delimiters = true;
+            }
+            int length = end - start;
+            int matrixSize = (int) Math.round(Math.sqrt(length));
+            if (delimiters || (!blanks && length >= 16 && matrixSize * matrixSize == length)) {
+                linePos = lineLength;
+                return delimiters ? delimited(start, end) : oneLine(start, matrixSize);
+            }
+            linePos = start;
+            return header();
+        }
+        return null;
+    }
+
+    public Iterator<int[][]> iterator() {
+        return new Iterator<int[][]>() {
+            private int[][] ahead;
+
+            public boolean hasNext() {
+                if (ahead == null) {
+                    try {
+                        ahead = PuzzleReader.this.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return ahead != null;
+            }
+
+            public int[][] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int[][] grid = ahead;
+                ahead = null;
+                return grid;
+            }
+        };
+    }
+
+    // puzzles are parsed as the stream is consumed; IO errors surface as UncheckedIOException
+    public Stream<int[][]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private int[][] oneLine(int start, int matrixSize) throws IOException {
+        int[][] grid = new int[matrixSize][matrixSize];
+        for (int num = 0; num < matrixSize * matrixSize; num++) {
+            int c = line[start + num];
+            int value;
+            if (c == '.' || c == '0') value = 0;
+            else if (c >= '1' && c <= '9') value = c - '0';
+            else if (c >= 'a' && c <= 'z') value = c - 'a' + 10;
+            else if (c >= 'A' && c <= 'Z') value = c - 'A' + 10;
+            else throw error("unexpected character '" + (char) c + "'");
+            check(value, matrixSize);
+            grid[num / matrixSize][num % matrixSize] = value;
+        }
+        return grid;
+    }
+
+    private int[][] delimited(int start, int end) throws IOException {
+        int cells = 1;
+        for (int p = start; p < end; p++) {
+            if (delimiter(line[p])) cells++;
+        }
+        int matrixSize = (int) Math.round(Math.sqrt(cells));
+        if (matrixSize * matrixSize != cells) throw error(cells + " cells is not a square grid");
+        int[][] grid = new int[matrixSize][matrixSize];
+        int p = start;
+        for (int num = 0; num < cells; num++) {
+            while (p < end && blank(line[p])) p++;
+            int value = 0;
+            if (p < end && line[p] == '.') {
+                p++;
+            } else {
+                while (p < end && line[p] >= '0' && line[p] <= '9') value = value * 10 + line[p++] - '0';
+            }
+            while (p < end && blank(line[p])) p++;
+            if (p < end && !delimiter(line[p])) throw error("unexpected character '" + (char) line[p] + "'");
+            p++;
+            check(value, matrixSize);
+            grid[num / matrixSize][num % matrixSize] = value;
+        }
+        return grid;
+    }
+
+    private int[][] header() throws IOException {
+        int matrixSize = token();
+        if (matrixSize <= 0) throw error("expected the puzzle size");
+        int[][] grid = new int[matrixSize][matrixSize];
+        for (int num = 0; num < matrixSize * matrixSize; num++) {
+            int value = token();
+            if (value < 0) throw error("puzzle ends after " + num + " of " + matrixSize * matrixSize + " cells");
+            check(value, matrixSize);
+            grid[num / matrixSize][num % matrixSize] = value;
+        }
+        return grid;
+    }
+
+    // next whitespace-separated value of a header-format puzzle, '.' as 0, reading further
+    // lines as needed; -1 at the end of the file
+    private int token() throws IOException {
+        while (true) {
+            while (linePos < lineLength && blank(line[linePos])) linePos++;
+            if (linePos < lineLength) break;
+            if (!readLine()) return -1;
+        }
+        int value = 0;
+        if (line[linePos] == '.') {
+            linePos++;
+        } else {
+            int digits = 0;
+            while (linePos < lineLength && line[linePos] >= '0' && line[linePos] <= '9') {
+                value = value * 10 + line[linePos++] - '0';
+                digits++;
+            }
+            if (digits == 0) throw error("unexpected character '" + (char) line[linePos] + "'");
+        }
+        if (linePos < lineLength && !blank(line[linePos])) {
+            throw error("unexpected character '" + (char) line[linePos] + "'");
+        }
+        return value;
+    }
+
+    // copies the next line, without its line break, into line; false at the end of the file
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        linePos = 0;
+        while (true) {
+            if (chunkPos == chunkEnd && !fill()) {
+                if (lineLength == 0) return false;
+                lineNumber++;
+                return true;
+            }
+            int p = chunkPos;
+            while (p < chunkEnd && chunk[p] != '\n') p++;
+            append(chunkPos, p);
+            boolean done = p < chunkEnd;
+            chunkPos = done ? p + 1 : p;
+            if (done) {
+                lineNumber++;
+                return true;
+            }
+        }
+    }
+
+    private void append(int from, int to) {
+        int count = to - from;
+        if (lineLength + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(2 * line.length, lineLength + count));
+        }
+        System.arraycopy(chunk, from, line, lineLength, count);
+        lineLength += count;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        chunkPos = 0;
+        chunkEnd = read;
+        return true;
+    }
+
+    private void check(int value, int matrixSize) throws IOException {
+        if (value > matrixSize) throw error("value " + value + " in a " + matrixSize + "x" + matrixSize + " puzzle");
+    }
+
+    private static boolean blank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean delimiter(byte b) {
+        return b == ',' || b == ';' || b == '|';
+    }
+
+    private IOException error(String message) {
+        return new IOException("line " + lineNumber + ": " + message);
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,81 @@
+package sudoku_solver;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.sat4j.specs.IConstr;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.Lbool;
+import org.sat4j.specs.SearchListener;
+
+// Stops a sat4j search from its own thread once a shared flag is set. expireTimeout cannot be
+// used for that from another thread: in sat4j 2.3.1 it drops the timer (or conflict counter)
+// the running search still dereferences. Instead the search polls the flag at every decision
+// and conflict and leaves isSatisfiable with a CancellationException; stopped then expires the
+// timeout the abandoned search had armed, on the same thread, so nothing races.
+public class SearchCancellation implements SearchListener {
+    private static final long serialVersionUID = 1L; // sat4j's SearchListener is Serializable
+
+    private AtomicBoolean cancelled;
+
+    public SearchCancellation(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public static void attach(ISolver solver, AtomicBoolean cancelled) {
+        solver.setSearchListener(new SearchCancellation(cancelled));
+    }
+
+    // call after catching the CancellationException, from the thread that searched
+    public static void stopped(ISolver solver) {
+        solver.expireTimeout();
+    }
+
+    private void check() {
+        if (cancelled.get()) throw new CancellationException();
+    }
+
+    public void assuming(int p) {
+        check();
+    }
+
+    public void conflictFound(IConstr confl, int dlevel, int trailLevel) {
+        check();
+    }
+
+    public void propagating(int p, IConstr reason) {
+    }
+
+    public void backtracking(int p) {
+    }
+
+    public void adding(int p) {
+    }
+
+    public void learn(IConstr c) {
+    }
+
+    public void delete(int[] clause) {
+    }
+
+    public void conflictFound(int p) {
+    }
+
+    public void solutionFound() {
+    }
+
+    public void beginLoop() {
+    }
+
+    public void start() {
+    }
+
+    public void end(Lbool result) {
+    }
+
+    public void restarting() {
+    }
+
+    public void backjump(int backjumpLevel) {
+    }
+}
@@ -1,24 +1,17 @@
 package sudoku_solver;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
-import org.sat4j.core.VecInt;
-import org.sat4j.minisat.SolverFactory;
 import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.TimeoutException;
 
-public class SequentialCounterSolver {
+public class SequentialCounterSolver extends UnitEncoder {
     public int MatrixSize;
     public int BlockSize;
-    public ArrayList<int[]> FirstRuleClause;
-    public ArrayList<int[]> SecondRuleClause;
-    public ArrayList<int[]> ThirdRuleClause;
-    public ArrayList<int[]> FourthRuleClause;
+    public ISolver solver;
+    public ClauseSink sink;
     public ArrayList<int[]> Input;
-    public Map<String, Integer> AddedVariableIdMap;
     public int AVCount = 0; // AddedVariable Count
     public String Status = "SAT";
     public long time = 0;
@@ -26,288 +19,89 @@ public class SequentialCounterSolver {
     public int clauses = 0;
     public int variables = 0; 
     public long executionTime;
+    public long encodeTime = 0; // nanoseconds spent generating and adding clauses
 
     SequentialCounterSolver(int MatrixSize, ArrayList<int[]> Input) {
-        this.MatrixSize = MatrixSize;
-        this.BlockSize = (int) Math.sqrt(MatrixSize);
+        this(MatrixSize, Input, new SolverOptions());
+    }
+
+    SequentialCounterSolver(int MatrixSize, ArrayList<int[]> Input, SolverOptions Options) {
+        this(MatrixSize, Options);
         this.Input = Input;
-        this.FirstRuleClause = new ArrayList<int[]>();
-        this.SecondRuleClause = new ArrayList<int[]>();
-        this.ThirdRuleClause = new ArrayList<int[]>();
-        this.FourthRuleClause = new ArrayList<int[]>();
-        this.AddedVariableIdMap = new HashMap<String, Integer>();
+        this.solver = newSolver();
+        this.sink = new SolverSink(solver);
         this.OutputMatrix = new int[MatrixSize][MatrixSize];
-        this.GenerateFirstRuleClauses();
-        this.GenerateSecondRuleClauses();
-        this.GenerateThirdRuleClauses();
-        if (this.MatrixSize == this.BlockSize * this.BlockSize) {
-            this.GenerateFourthRuleClauses();
-        }
-        // this.PrintClause();
         try {
+            long encodeStart = System.nanoTime();
+            this.encode(SudokuUnits.toGrid(MatrixSize, Input), sink);
+            this.encodeTime = System.nanoTime() - encodeStart;
             this.Solve();
         } catch (ContradictionException e) {
             e.printStackTrace();
         }
     }
 
-    private void GenerateFirstRuleClauses() {
-        for (int i = 1; i <= MatrixSize; i++) {
-            for (int j = 1; j <= MatrixSize; j++) {
-                ArrayList<Integer> ALO = new ArrayList<Integer>();
-
-                int AVId = -1;
-                String StringAV = "";
-                for (int k = 1; k <= MatrixSize; k++) {
-                    // make ALO clause
-                    ALO.add(makeId(i, j, k));
-
-                    // get or make idAV
-                    int PreviousIdAV = AVId;
-                    if (k != MatrixSize) {
-                        StringAV = MakeStringAV(ALO); // make key for map AV
-                        if (!AddedVariableIdMap.containsKey(StringAV)) {
-                            AVCount++;
-                            AVId = AVCount + MatrixSize * MatrixSize * MatrixSize;
-                            AddedVariableIdMap.put(StringAV, AVId);
-                        } else {
-                            AVId = AddedVariableIdMap.get(StringAV);
-                        }
-                    }
-                    // make AMO clause
-                    ArrayList<Integer> ElementTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoElementFalseClause = new ArrayList<Integer>();
-                    if (k == 1) {
-                        ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                        ElementTrueSoAVTrueClause.add(AVId);
-                        FirstRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-
-                    } else {
-                        if (k != MatrixSize) {
-                            ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                            ElementTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoAVTrueClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
-
-                            FirstRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-                            FirstRuleClause.add(ArrayListToList(PreviousAVTrueSoAVTrueClause));
-                            FirstRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        } else {
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
-                            FirstRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        }
-                    }
-                    // System.out.println(idAV);
-                }
-                FirstRuleClause.add(ArrayListToList(ALO));
-            }
-        }
+    // encoder only, nothing is solved
+    public SequentialCounterSolver(int MatrixSize, SolverOptions Options) {
+        super(MatrixSize, Options);
+        this.MatrixSize = MatrixSize;
+        this.BlockSize = (int) Math.sqrt(MatrixSize);
     }
 
-    private void GenerateSecondRuleClauses() {
-        for (int i = 1; i <= MatrixSize; i++) {
-            for (int k = 1; k <= MatrixSize; k++) {
-                ArrayList<Integer> ALO = new ArrayList<Integer>();
-
-                int AVId = -1;
-                String StringAV = "";
-                for (int j = 1; j <= MatrixSize; j++) {
-                    // make ALO clause
-                    ALO.add(makeId(i, j, k));
-
-                    // get or make idAV
-                    int PreviousIdAV = AVId;
-                    if (j != MatrixSize) {
-                        StringAV = MakeStringAV(ALO); // make key for map AV
-                        if (!AddedVariableIdMap.containsKey(StringAV)) {
-                            AVCount++;
-                            AVId = AVCount + MatrixSize * MatrixSize * MatrixSize;
-                            AddedVariableIdMap.put(StringAV, AVId);
-                        } else {
-                            AVId = AddedVariableIdMap.get(StringAV);
-                        }
-                    }
-                    // make AMO clause
-                    ArrayList<Integer> ElementTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoElementFalseClause = new ArrayList<Integer>();
-                    if (j == 1) {
-                        ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                        ElementTrueSoAVTrueClause.add(AVId);
-                        SecondRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-
-                    } else {
-                        if (j != MatrixSize) {
-                            ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                            ElementTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoAVTrueClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
-
-                            SecondRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-                            SecondRuleClause.add(ArrayListToList(PreviousAVTrueSoAVTrueClause));
-                            SecondRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        } else {
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
-                            SecondRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        }
-                    }
-                    // PrintArray(ArrayListToList(AllowableRangeValue));
-                }
-                SecondRuleClause.add(ArrayListToList(ALO));
-            }
-        }
+    public String name() {
+        return "Sequential";
     }
 
-    private void GenerateThirdRuleClauses() {
-        for (int j = 1; j <= MatrixSize; j++) {
-            for (int k = 1; k <= MatrixSize; k++) {
-                ArrayList<Integer> ALO = new ArrayList<Integer>();
+    protected int auxVars(int Length) {
+        return Math.max(Length - 1, 0);
+    }
 
-                int AVId = -1;
-                String StringAV = "";
-                for (int i = 1; i <= MatrixSize; i++) {
-                    // make ALO clause
-                    ALO.add(makeId(i, j, k));
+    // 3 * Length - 4 binary clauses for Length >= 2, none below
+    protected long clauses(int Length) {
+        return Math.max(3L * Length - 4, 0);
+    }
 
-                    // get or make idAV
-                    int PreviousIdAV = AVId;
-                    if (i != MatrixSize) {
-                        StringAV = MakeStringAV(ALO); // make key for map AV
-                        if (!AddedVariableIdMap.containsKey(StringAV)) {
-                            AVCount++;
-                            AVId = AVCount + MatrixSize * MatrixSize * MatrixSize;
-                            AddedVariableIdMap.put(StringAV, AVId);
-                        } else {
-                            AVId = AddedVariableIdMap.get(StringAV);
-                        }
-                    }
-                    // make AMO clause
-                    ArrayList<Integer> ElementTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoAVTrueClause = new ArrayList<Integer>();
-                    ArrayList<Integer> PreviousAVTrueSoElementFalseClause = new ArrayList<Integer>();
-                    if (i == 1) {
-                        ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                        ElementTrueSoAVTrueClause.add(AVId);
-                        ThirdRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
+    protected long binaryClauses(int Length) {
+        return Math.max(3L * Length - 4, 0);
+    }
 
-                    } else {
-                        if (i != MatrixSize) {
-                            ElementTrueSoAVTrueClause.add(-makeId(i, j, k));
-                            ElementTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoAVTrueClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoAVTrueClause.add(AVId);
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
+    protected long literals(int Length) {
+        return 2 * Math.max(3L * Length - 4, 0);
+    }
 
-                            ThirdRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-                            ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoAVTrueClause));
-                            ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        } else {
-                            PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                            PreviousAVTrueSoElementFalseClause.add(-makeId(i, j, k));
-                            ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                        }
-                    }
-                    // System.out.println(idAV);
+    protected void atMostOne(int[] Literals, int Length, int FirstAV, ClauseSink sink)
+            throws ContradictionException {
+        // the unit owns AVs FirstAV .. FirstAV + Length - 2, AV p is true when one of
+        // its first p + 1 elements is true
+        for (int p = 0; p < Length; p++) {
+            int Element = Literals[p];
+            int AVId = FirstAV + p;
+            int PreviousIdAV = AVId - 1;
+            // make AMO clause
+            if (p != Length - 1) {
+                // element true so AV true
+                sink.addBinary(-Element, AVId);
+            }
+            if (p != 0) {
+                if (p != Length - 1) {
+                    // previous AV true so AV true
+                    sink.addBinary(-PreviousIdAV, AVId);
                 }
-                ThirdRuleClause.add(ArrayListToList(ALO));
+                // previous AV true so element false
+                sink.addBinary(-PreviousIdAV, -Element);
             }
         }
     }
 
-    private void GenerateFourthRuleClauses() {
-
-        for (int k = 1; k <= MatrixSize; k++) {
-            for (int i = 1; i <= BlockSize; i++) {
-                for (int j = 1; j <= BlockSize; j++) {
-                    int startBlock_i = BlockSize * i - (BlockSize - 1);
-                    int startBlock_j = BlockSize * j - (BlockSize - 1);
-                    ArrayList<Integer> ALO = new ArrayList<Integer>();
-                    int AVId = -1;
-                    String StringAV = "";
-                    for (int b = 1; b <= MatrixSize; b++) {
-                        int b_i = startBlock_i + (b - 1) / BlockSize;
-                        int b_j = startBlock_j + (b - 1) % BlockSize;
-                        ALO.add(makeId(b_i, b_j, k));
-                        // get or make idAV
-                        int PreviousIdAV = AVId;
-                        if (b != MatrixSize) {
-                            StringAV = MakeStringAV(ALO); // make key for map AV
-                            if (!AddedVariableIdMap.containsKey(StringAV)) {
-                                AVCount++;
-                                AVId = AVCount + MatrixSize * MatrixSize * MatrixSize;
-                                AddedVariableIdMap.put(StringAV, AVId);
-                            } else {
-                                AVId = AddedVariableIdMap.get(StringAV);
-                            }
-                        }
-                        // make AMO clause
-                        ArrayList<Integer> ElementTrueSoAVTrueClause = new ArrayList<Integer>();
-                        ArrayList<Integer> PreviousAVTrueSoAVTrueClause = new ArrayList<Integer>();
-                        ArrayList<Integer> PreviousAVTrueSoElementFalseClause = new ArrayList<Integer>();
-                        if (b == 1) {
-                            ElementTrueSoAVTrueClause.add(-makeId(b_i, b_j, k));
-                            ElementTrueSoAVTrueClause.add(AVId);
-                            ThirdRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-
-                        } else {
-                            if (b != MatrixSize) {
-                                ElementTrueSoAVTrueClause.add(-makeId(b_i, b_j, k));
-                                ElementTrueSoAVTrueClause.add(AVId);
-                                PreviousAVTrueSoAVTrueClause.add(-PreviousIdAV);
-                                PreviousAVTrueSoAVTrueClause.add(AVId);
-                                PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                                PreviousAVTrueSoElementFalseClause.add(-makeId(b_i, b_j, k));
-
-                                ThirdRuleClause.add(ArrayListToList(ElementTrueSoAVTrueClause));
-                                ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoAVTrueClause));
-                                ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                            } else {
-                                PreviousAVTrueSoElementFalseClause.add(-PreviousIdAV);
-                                PreviousAVTrueSoElementFalseClause.add(-makeId(b_i, b_j, k));
-                                ThirdRuleClause.add(ArrayListToList(PreviousAVTrueSoElementFalseClause));
-                            }
-                        }
-                    }
-                    FourthRuleClause.add(ArrayListToList(ALO));
-                }
-            }
-        }
+    public void encode(int[][] grid, ClauseSink sink) throws ContradictionException {
+        super.encode(grid, sink);
+        AVCount = nVars() - units.nDirectVars;
     }
 
     private void Solve() throws ContradictionException {
-        ISolver solver = SolverFactory.newDefault();
         try {
-            solver.newVar(MatrixSize * MatrixSize * MatrixSize + AVCount); // Tạo biến với 2 biến
-            variables = MatrixSize * MatrixSize * MatrixSize + AVCount;
-            for (int[] element : FirstRuleClause) {
-                solver.addClause(new VecInt(element));
-            }
-            for (int[] element : SecondRuleClause) {
-                solver.addClause(new VecInt(element));
-            }
-            for (int[] element : ThirdRuleClause) {
-                solver.addClause(new VecInt(element));
-            }
-            clauses = FirstRuleClause.size() + SecondRuleClause.size() + ThirdRuleClause.size();
-            if (this.MatrixSize == 9 || this.MatrixSize == 16 || this.MatrixSize == 25 || this.MatrixSize == 36) {
-                for (int[] element : FourthRuleClause) {
-                    solver.addClause(new VecInt(element));
-                }
-                clauses += FourthRuleClause.size();
-            }
-            
-            for (int[] element : Input) {
-                solver.addClause(new VecInt(element));
-            }
-            clauses += Input.size();
+            variables = nVars();
+            clauses = sink.nClauses();
             long startTime = System.currentTimeMillis();
             boolean isSAT = solver.isSatisfiable();
             long endTime = System.currentTimeMillis();
@@ -317,23 +111,8 @@ public class SequentialCounterSolver {
             if (isSAT) {
                 this.clauses = solver.nConstraints();
                 this.variables = solver.nVars();
-                int[] model = solver.model();
-                //int count = 0;
-                int countRow = 0;
-                int countCol = 0;
-                for (int i = 1; i <= MatrixSize * MatrixSize * MatrixSize; i++) {
-                    if (model[i - 1] > 0) {
-                        int k = IdToPositon(model[i - 1]);
-                        OutputMatrix[countRow][countCol] = k;
-                        if (countCol == MatrixSize - 1) {
-                            countCol = -1;
-                            countRow++;
-                            //System.out.println();
-                        }
-                        countCol++;
-                    }
-                    // System.out.println("Bien" + i + " = " + model[i - 1]);
-                }
+                OutputMatrix = decode(solver.model());
+                if (!SudokuVerifier.isSolution(units.givens, OutputMatrix)) Status = "INCORRECT";
             } else {
                 System.out.println("UNSAT");
                 Status = "UNSAT";
@@ -343,27 +122,6 @@ public class SequentialCounterSolver {
         }
     }
 
-    private int makeId(int i, int j, int k) {
-        return (i - 1) * MatrixSize * MatrixSize + (j - 1) * MatrixSize + k;
-    }
-
-    public String MakeStringAV(ArrayList<Integer> representedElements) {
-        String result = "";
-        for (int element : representedElements) {
-            result += Integer.toString(element) + ",";
-        }
-        return result.substring(0, result.length() - 1);
-    }
-
-    public void PrintClause() {
-        for (int[] element : FirstRuleClause) {
-            PrintArray(element);
-        }
-        // System.out.println(
-        // FirstRuleClause.size() + SecondRuleClause.size() + ThirdRuleClause.size() +
-        // FourthRuleClause.size());
-    }
-
     public int IdToPositon(int id) {
         int i = (id / (MatrixSize * MatrixSize)) + 1;
         int j = ((id % (MatrixSize * MatrixSize)) / MatrixSize) + 1;
@@ -381,12 +139,4 @@ public class SequentialCounterSolver {
         }
         System.out.println();
     }
-
-    public static int[] ArrayListToList(ArrayList<Integer> arrayList) {
-        int[] array = new int[arrayList.size()];
-        for (int i = 0; i < arrayList.size(); i++) {
-            array[i] = arrayList.get(i);
-        }
-        return array;
-    }
 }
@@ -0,0 +1,73 @@
+package sudoku_solver;
+
+// Predicted size of one encoding of one puzzle, and what it will cost in sat4j.
+// The heap is charged for what sat4j keeps after loading, which follows the open cells and
+// their candidates rather than the generated formula (see SudokuUnits.keptLength). Its costs
+// were fitted on the retained heap of empty, sparse and bundled grids of size 16..49 in both
+// modes: within about 10% except the auxiliary-variable encodings on dense full-mode grids
+// (up to 30% under) and Cardinality on empty ones (up to 20% over). The time costs were
+// fitted on encode + load and search time on both modes of input6..10 (single runs, so only
+// good for ranking); the long-literal time also carries the per-unit overhead. Search time
+// grows with the variables, auxiliary ones included, since every one of them is propagated.
+public class SizeEstimate {
+    static final long BYTES_PER_BINARY_CLAUSE = 46;
+    static final long BYTES_PER_LONG_LITERAL = 10; // literals of clauses with 1 or 3+ literals
+    static final long BYTES_PER_VARIABLE = 234;
+    static final double LOAD_NANOS_PER_BINARY_CLAUSE = 25;
+    static final double LOAD_NANOS_PER_LONG_LITERAL = 1300;
+    static final double SEARCH_NANOS_PER_VARIABLE = 1600;
+
+    public String encoding;
+    public long variables;
+    public long clauses = 0;
+    public long binaryClauses = 0;
+    public long literals = 0;
+    // what sat4j still holds once the givens are loaded, which is what the heap pays for; all of
+    // the formula for an empty grid
+    public long keptBinaryClauses = 0;
+    public long keptLiterals = 0;
+
+    public SizeEstimate(String encoding, long directVariables) {
+        this.encoding = encoding;
+        this.variables = directVariables;
+    }
+
+    void add(long units, long auxVars, long clauses, long binaryClauses, long literals) {
+        this.variables += units * auxVars;
+        this.clauses += units * clauses;
+        this.binaryClauses += units * binaryClauses;
+        this.literals += units * literals;
+    }
+
+    void keep(long units, long binaryClauses, long literals) {
+        this.keptBinaryClauses += units * binaryClauses;
+        this.keptLiterals += units * literals;
+    }
+
+    public long memoryBytes() {
+        return keptBinaryClauses * BYTES_PER_BINARY_CLAUSE
+                + (keptLiterals - 2 * keptBinaryClauses) * BYTES_PER_LONG_LITERAL + variables * BYTES_PER_VARIABLE;
+    }
+
+    // encode and load
+    public double loadSeconds() {
+        return cost(0, binaryClauses, literals) / 1e9;
+    }
+
+    // encode, load and search: what the encoding is expected to take end to end
+    public double expectedSeconds() {
+        return cost(variables, binaryClauses, literals) / 1e9;
+    }
+
+    // ns the cost model charges for these variables, binary clauses and literals
+    static double cost(long variables, long binaryClauses, long literals) {
+        return binaryClauses * LOAD_NANOS_PER_BINARY_CLAUSE
+                + (literals - 2 * binaryClauses) * LOAD_NANOS_PER_LONG_LITERAL
+                + variables * SEARCH_NANOS_PER_VARIABLE;
+    }
+
+    public String toString() {
+        return encoding + ": " + variables + " variables, " + clauses + " clauses, "
+                + memoryBytes() / (1 << 20) + " MB, " + String.format("%.1f s", expectedSeconds());
+    }
+}
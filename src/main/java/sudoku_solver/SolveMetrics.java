@@ -0,0 +1,304 @@
+package sudoku_solver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Map;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// Where the time of one solve goes. The clauses are generated once into a CountingSink to
+// time generation alone (encode); load is what streaming them into sat4j takes on top of that.
+// Holding them all in a ClauseBuffer instead would split the two exactly but need the
+// whole formula in memory twice. Timings are in ns, peak heap is the sum of the heap pools'
+// peaks during the solve.
+public class SolveMetrics {
+    public static final String[] COLUMNS = {"Variables", "Clauses", "Time", "Status", "Parse (ns)",
+            "Propagate (ns)", "Propagated cells", "Encode (ns)", "Load (ns)", "Solve (ns)", "Decode (ns)",
+            "Verify (ns)", "Verified", "Conflicts", "Decisions", "Propagations", "Learned", "Restarts",
+            "Peak heap (bytes)", "Predicted clauses", "Predicted heap (bytes)", "Budget", "Ran as", "Level",
+            "Saved clauses", "Saved variables", "Cubes", "Refuted cubes", "Cube workers", "Lazy rounds",
+            "Added pairs"};
+
+    public String encoding;
+    public int test;
+    public int matrixSize;
+    public String status;
+    public int nVars = 0;
+    public int nClauses = 0;
+    public long parseTime = 0;
+    public long propagateTime = 0; // with options.propagate
+    public int propagated = 0; // cells the Propagator filled in
+    public long encodeTime = 0;
+    public long loadTime = 0;
+    public long solveTime = 0;
+    public long decodeTime = 0;
+    public long verifyTime = 0;
+    public boolean verified = false;
+    public long conflicts = 0;
+    public long decisions = 0;
+    public long propagations = 0;
+    public long learned = 0;
+    public long restarts = 0;
+    public long peakHeap = 0;
+    public SizeEstimate estimate;
+    public String budgetNote; // set when the encoding was skipped or redirected
+    public String ranAs = ""; // encoder that actually ran, differs after a redirect or for Auto
+    public String level;
+    public long savedClauses = 0; // predicted, against the extended level of the encoder that ran
+    public long savedVariables = 0;
+    public int cubes = 0; // with options.cubeCells, see CubeSolver
+    public int refutedCubes = 0;
+    public int cubeWorkers = 0;
+    public int lazyRounds = 0; // with options.lazy, see LazySolver
+    public int addedPairs = 0;
+    public int[][] result = new int[0][0];
+
+    public static SolveMetrics run(String encoding, int test, String path, SolverOptions options) {
+        SolveMetrics metrics = new SolveMetrics();
+        metrics.encoding = encoding;
+        metrics.test = test;
+        metrics.level = options.level;
+        resetPeakHeap();
+        metrics.measure(path, options);
+        metrics.peakHeap = peakHeap();
+        return metrics;
+    }
+
+    private void measure(String path, SolverOptions options) {
+        long start = System.nanoTime();
+        int[][] grid = SudokuMain.readInput(path);
+        matrixSize = grid.length;
+        parseTime = System.nanoTime() - start;
+
+        int[][] search = grid;
+        if (options.propagate) {
+            start = System.nanoTime();
+            Propagator propagation = Propagator.run(grid);
+            propagateTime = System.nanoTime() - start;
+            propagated = propagation.assigned;
+            if (!propagation.status.equals(Propagator.STUCK)) {
+                // settled without an encoding, nothing to predict
+                estimate = new SizeEstimate(encoding, 0);
+                ranAs = "Propagation";
+                status = SolveResult.UNSAT;
+                if (propagation.status.equals(Propagator.SOLVED)) {
+                    status = SolveResult.SAT;
+                    result = propagation.grid;
+                    start = System.nanoTime();
+                    verified = SudokuVerifier.isSolution(grid, result);
+                    verifyTime = System.nanoTime() - start;
+                }
+                return;
+            }
+            search = propagation.grid;
+        }
+        if (encoding.equals(DancingLinks.NAME)) {
+            measureExactCover(grid, search, options);
+            return;
+        }
+
+        Budget budget = Budget.plan(encoding, search, options);
+        estimate = budget.estimate;
+        budgetNote = budget.note;
+        if (budget.encoder == null) {
+            status = SolveResult.SKIPPED;
+            return;
+        }
+        SudokuEncoder encoder = budget.encoder;
+        if (!options.level.equals(UnitEncoder.EXTENDED)) {
+            SolverOptions extended = options.copy();
+            extended.level = UnitEncoder.EXTENDED;
+            SizeEstimate full = Encodings.create(encoder.name(), search.length, extended).estimate(search);
+            SizeEstimate actual = encoder.estimate(search);
+            savedClauses = full.clauses - actual.clauses;
+            savedVariables = full.variables - actual.variables;
+        }
+        if (options.cubeCells > 0) {
+            measureCubes(encoder, grid, search, options);
+            return;
+        }
+        if (options.lazy && encoder instanceof UnitEncoder) {
+            measureLazy((UnitEncoder) encoder, grid, search, options);
+            return;
+        }
+        ISolver solver = SolverConfig.create(options.configFor(encoder.name(), grid.length));
+        solver.setTimeout(options.timeout);
+        try {
+            start = System.nanoTime();
+            encoder.encode(search, new CountingSink());
+            encodeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            SolverSink sink = new SolverSink(solver);
+            encoder.encode(search, sink);
+            nVars = encoder.nVars();
+            nClauses = sink.nClauses();
+            ranAs = encoder.name();
+            loadTime = Math.max(System.nanoTime() - start - encodeTime, 0);
+
+            start = System.nanoTime();
+            boolean sat;
+            try {
+                sat = solver.isSatisfiable();
+            } finally {
+                solveTime = System.nanoTime() - start; // a timed-out search took its time too
+            }
+            if (!sat) {
+                status = SolveResult.UNSAT;
+            } else {
+                status = SolveResult.SAT;
+                start = System.nanoTime();
+                result = encoder.decode(solver.model());
+                decodeTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                verified = SudokuVerifier.isSolution(grid, result);
+                verifyTime = System.nanoTime() - start;
+            }
+        } catch (ContradictionException e) {
+            status = SolveResult.UNSAT;
+        } catch (TimeoutException e) {
+            status = SolveResult.TIMEOUT;
+        }
+        conflicts = stat(solver, "conflicts");
+        decisions = stat(solver, "decisions");
+        propagations = stat(solver, "propagations");
+        learned = stat(solver, "learnedclauses");
+        restarts = stat(solver, "starts");
+    }
+
+    // DLX has no clauses: encode is building the links, variables and clauses are its options
+    // and open constraints, decisions and conflicts its choices and backtracks
+    private void measureExactCover(int[][] grid, int[][] search, SolverOptions options) {
+        estimate = new SizeEstimate(encoding, 0);
+        ranAs = DancingLinks.NAME;
+        long start = System.nanoTime();
+        DancingLinks links = new DancingLinks(search);
+        encodeTime = System.nanoTime() - start;
+        nVars = links.options;
+        nClauses = links.columns;
+
+        start = System.nanoTime();
+        links.solve(start + options.exactCoverTimeout * 1000000000L);
+        solveTime = System.nanoTime() - start;
+        status = links.status;
+        decisions = links.choices;
+        conflicts = links.backtracks;
+        if (status.equals(SolveResult.SAT)) {
+            start = System.nanoTime();
+            result = links.solution();
+            decodeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            verified = SudokuVerifier.isSolution(grid, result);
+            verifyTime = System.nanoTime() - start;
+        }
+    }
+
+    // encode is the one encoding into the shared buffer, load the slowest worker's replay and
+    // solve the wall clock of the workers; the search statistics are summed over them
+    private void measureCubes(SudokuEncoder encoder, int[][] grid, int[][] search, SolverOptions options) {
+        CubeSolver cube = new CubeSolver(encoder, grid, search, options);
+        cube.solve();
+        ranAs = encoder.name();
+        nVars = cube.nVars;
+        nClauses = cube.nClauses;
+        encodeTime = cube.encodeTime;
+        loadTime = cube.loadTime;
+        solveTime = cube.solveTime;
+        status = cube.status;
+        conflicts = cube.conflicts;
+        decisions = cube.decisions;
+        propagations = cube.propagations;
+        cubes = cube.cubes.size();
+        refutedCubes = cube.refuted.get();
+        cubeWorkers = cube.workers;
+        if (cube.result != null) {
+            result = cube.result;
+            long start = System.nanoTime();
+            verified = SudokuVerifier.isSolution(grid, result);
+            verifyTime = System.nanoTime() - start;
+        }
+    }
+
+    // encode is the cell and row units, load the time spent checking models and adding the
+    // broken units, solve all the searches together
+    private void measureLazy(UnitEncoder encoder, int[][] grid, int[][] search, SolverOptions options) {
+        LazySolver lazy = new LazySolver(encoder, grid, search, options);
+        lazy.solve();
+        ranAs = encoder.name();
+        nVars = lazy.nVars;
+        nClauses = lazy.nClauses;
+        encodeTime = lazy.encodeTime;
+        loadTime = lazy.refineTime;
+        solveTime = lazy.solveTime;
+        status = lazy.status;
+        lazyRounds = lazy.rounds;
+        addedPairs = lazy.addedPairs;
+        conflicts = stat(lazy.solver, "conflicts");
+        decisions = stat(lazy.solver, "decisions");
+        propagations = stat(lazy.solver, "propagations");
+        learned = stat(lazy.solver, "learnedclauses");
+        restarts = stat(lazy.solver, "starts");
+        if (lazy.result != null) {
+            result = lazy.result;
+            long start = System.nanoTime();
+            verified = SudokuVerifier.isSolution(grid, result);
+            verifyTime = System.nanoTime() - start;
+        }
+    }
+
+    // one counter of sat4j's statistics, 0 when the configuration does not keep it; getStat is
+    // a raw Map in sat4j 2.3.1
+    @SuppressWarnings("unchecked")
+    public static long stat(ISolver solver, String key) {
+        Map<String, Number> stats = solver.getStat();
+        Number value = stats.get(key);
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    // one group of COLUMNS, Time in ms like the original summary
+    public String csv() {
+        return nVars + "," + nClauses + "," + solveTime / 1000000 + "," + status + "," + parseTime + ","
+                + propagateTime + "," + propagated + "," + encodeTime + "," + loadTime + "," + solveTime + ","
+                + decodeTime + "," + verifyTime + "," + verified + "," + conflicts + "," + decisions + ","
+                + propagations + "," + learned + "," + restarts + "," + peakHeap + "," + estimate.clauses + ","
+                + estimate.memoryBytes() + "," + (budgetNote == null ? "" : budgetNote) + "," + ranAs + "," + level
+                + "," + savedClauses + "," + savedVariables + "," + cubes + "," + refutedCubes + "," + cubeWorkers
+                + "," + lazyRounds + "," + addedPairs;
+    }
+
+    public String json() {
+        return "{\"test\":" + test + ",\"size\":" + matrixSize + ",\"encoding\":\"" + encoding
+                + "\",\"status\":\"" + status + "\",\"variables\":" + nVars + ",\"clauses\":" + nClauses
+                + ",\"parseNs\":" + parseTime + ",\"propagateNs\":" + propagateTime
+                + ",\"propagatedCells\":" + propagated + ",\"encodeNs\":" + encodeTime + ",\"loadNs\":" + loadTime
+                + ",\"solveNs\":" + solveTime + ",\"decodeNs\":" + decodeTime + ",\"verifyNs\":" + verifyTime
+                + ",\"verified\":" + verified + ",\"conflicts\":" + conflicts + ",\"decisions\":" + decisions
+                + ",\"propagations\":" + propagations + ",\"learned\":" + learned + ",\"restarts\":" + restarts
+                + ",\"peakHeapBytes\":" + peakHeap + ",\"predictedClauses\":" + estimate.clauses
+                + ",\"predictedHeapBytes\":" + estimate.memoryBytes()
+                + (budgetNote == null ? "" : ",\"budget\":\"" + budgetNote + "\"")
+                + ",\"ranAs\":\"" + ranAs + "\",\"level\":\"" + level + "\",\"savedClauses\":" + savedClauses
+                + ",\"savedVariables\":" + savedVariables + ",\"cubes\":" + cubes + ",\"refutedCubes\":" + refutedCubes
+                + ",\"cubeWorkers\":" + cubeWorkers + ",\"lazyRounds\":" + lazyRounds + ",\"addedPairs\":" + addedPairs
+                + "}";
+    }
+}
@@ -0,0 +1,75 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// Outcome of solving one puzzle with one encoding: encode into a fresh sat4j solver,
+// search, decode and verify. With options.propagate the Propagator runs first and sat4j
+// only sees the puzzles it cannot finish, with the values it deduced added to the givens.
+// With options.cubeCells the search is split into cubes, see CubeSolver, and with options.lazy
+// the column and block pairs are only added once a model breaks them, see LazySolver.
+public class SolveResult {
+    public static final String SAT = "SAT";
+    public static final String UNSAT = "UNSAT";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String INCORRECT = "INCORRECT"; // the decoded grid failed SudokuVerifier
+    public static final String SKIPPED = "SKIPPED"; // over the memory or time budget, see Budget
+
+    public String encoding;
+    public String status;
+    public int[][] result;
+    public int nVars;
+    public int nClauses;
+    public long totalTime; // ns, encode + solve + decode
+
+    public static SolveResult run(SudokuEncoder encoder, int[][] grid, SolverOptions options) {
+        if (options.cubeCells > 0) return CubeSolver.run(encoder, grid, options);
+        if (options.lazy && encoder instanceof UnitEncoder) return LazySolver.run((UnitEncoder) encoder, grid, options);
+        long start = System.nanoTime();
+        int[][] search = grid;
+        if (options.propagate) {
+            Propagator propagation = Propagator.run(grid);
+            SolveResult settled = propagated(propagation, grid, start);
+            if (settled != null) return settled;
+            search = propagation.grid;
+        }
+        SolveResult run = new SolveResult();
+        ISolver solver = SolverConfig.create(options.configFor(encoder.name(), grid.length));
+        solver.setTimeout(options.timeout);
+        SolverSink sink = new SolverSink(solver);
+        try {
+            encoder.encode(search, sink);
+            if (solver.isSatisfiable()) {
+                run.result = encoder.decode(solver.model());
+                run.status = SudokuVerifier.isSolution(grid, run.result) ? SAT : INCORRECT;
+            } else {
+                run.status = UNSAT;
+            }
+        } catch (ContradictionException e) {
+            run.status = UNSAT;
+        } catch (TimeoutException e) {
+            run.status = TIMEOUT;
+        }
+        run.encoding = encoder.name();
+        run.nVars = solver.nVars();
+        run.nClauses = sink.nClauses();
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+
+    // the result when propagation alone solved the puzzle or proved it unsolvable, null otherwise
+    static SolveResult propagated(Propagator propagation, int[][] grid, long start) {
+        if (propagation.status.equals(Propagator.STUCK)) return null;
+        SolveResult run = new SolveResult();
+        run.encoding = "Propagation";
+        if (propagation.status.equals(Propagator.SOLVED)) {
+            run.result = propagation.grid;
+            run.status = SudokuVerifier.isSolution(grid, run.result) ? SAT : INCORRECT;
+        } else {
+            run.status = UNSAT;
+        }
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+}
@@ -0,0 +1,18 @@
+package sudoku_solver;
+
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+
+// sat4j solver configurations by name: anything SolverFactory.newXxx provides, e.g.
+// "Default", "Light", "Glucose", "MiniSATHeap", "MiniLearningHeapRsatExpSimpLuby".
+public class SolverConfig {
+    public static final String DEFAULT = "Default";
+
+    public static ISolver create(String name) {
+        ISolver solver = SolverFactory.instance().createSolverByName(name);
+        if (solver == null) {
+            throw new IllegalArgumentException("unknown sat4j configuration: " + name);
+        }
+        return solver;
+    }
+}
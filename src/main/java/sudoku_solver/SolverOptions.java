@@ -0,0 +1,191 @@
+package sudoku_solver;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// Settings shared by every encoding, filled from the command line by SudokuMain.
+public class SolverOptions implements Cloneable {
+    // fold the givens into the encoding instead of adding them as unit clauses
+    public boolean reduced = false;
+    // which redundant halves of the exactly-one constraints to emit, see UnitEncoder
+    public String level = UnitEncoder.EXTENDED;
+    // literals per group of the commander encoding, see CommanderSolver
+    public int commanderGroup = 3;
+    // encode on this many ForkJoinPool threads, 1 keeps the single-threaded generators
+    public int threads = 1;
+    // with threads > 1, add the clauses in the single-threaded order instead of as shards finish
+    public boolean deterministic = false;
+    // race all encodings and keep the first answer instead of running them one after another
+    public boolean portfolio = false;
+    // sat4j configurations (see SolverConfig) each encoding enters the portfolio with
+    public String[] portfolioConfigs = {SolverConfig.DEFAULT};
+    // sat4j configuration for everything that is not a portfolio, see configFor
+    public String solverConfig = SolverConfig.DEFAULT;
+    // sat4j configuration per encoding ("Binary") or per encoding and size ("Binary/9"),
+    // from --solver=Binary:Glucose and from a --tuned= file written by ConfigTuner
+    public Map<String, String> encodingConfigs = new HashMap<String, String>();
+    // tune mode: training puzzle files, the configurations to try, rounds over the training set
+    // (only the last is scored) and where to write the winners
+    public String[] tuneFiles = null;
+    public String[] tuneConfigs = ConfigTuner.CANDIDATES;
+    public int tuneRounds = 2;
+    public String tuneOutput = "src/main/java/sudoku_solver/output/TunedConfigs.properties";
+    // batch mode: puzzle files to solve, result file, worker threads, queue capacity
+    public String[] batchFiles = null;
+    public String batchOutput = "src/main/java/sudoku_solver/output/BatchResult.csv";
+    public int workers = Runtime.getRuntime().availableProcessors();
+    public int queueSize = 256;
+    // encodings every puzzle is solved with in the summary and batch modes, --auto for just "Auto";
+    // --encodings=...,DLX adds the exact-cover search of DancingLinks, which times out on the bundled
+    // 25x25, 49x49 and 64x64 inputs, and Log (see Encodings.OPT_IN) is left out for the same reason
+    public String[] encodings = {"Bionomial", "Binary", "Sequential", "Cardinality", "Commander", "Product"};
+    // batch mode: solve against one prebuilt formula per (encoding, size) with the givens as assumptions
+    public boolean template = false;
+    // write every encoding of the bundled inputs as DIMACS into this directory instead of solving
+    public String exportDir = null;
+    // load these DIMACS files into sat4j and solve them instead of the bundled inputs
+    public String[] cnfFiles = null;
+    // encodings predicted (see SizeEstimate) to need more heap than this are not run
+    public long memoryBudget = Runtime.getRuntime().maxMemory() / 10 * 8;
+    // seconds, hard sat4j timeout of every search and limit on the predicted encode time
+    public int timeout = 600;
+    // "skip" an encoding over budget, or "redirect" the solve to the cheapest one that fits
+    public String overBudget = "skip";
+    // seconds the DLX search may take; without clause learning it can thrash on large grids
+    public int exactCoverTimeout = 10;
+    // cube and conquer (see CubeSolver) on this many cells, 0 solves the formula as one piece
+    public int cubeCells = 0;
+    // solver instances that share the cubes of one puzzle
+    public int cubeWorkers = Runtime.getRuntime().availableProcessors();
+    // start from the cell and row units and add the column and block pairs models break, see LazySolver
+    public boolean lazy = false;
+    // print the solve times of tests 7..10 over these cube worker counts instead of the summary
+    public int[] cubeScaling = null;
+    // run the Propagator before encoding: return its solution, or encode the puzzle it reduced
+    public boolean propagate = false;
+
+    public static SolverOptions parse(String[] args) {
+        SolverOptions options = new SolverOptions();
+        for (String arg : args) {
+            if (arg.equals("--reduced")) {
+                options.reduced = true;
+            } else if (arg.startsWith("--level=")) {
+                options.level = arg.substring("--level=".length());
+                if (!options.level.equals(UnitEncoder.MINIMAL) && !options.level.equals(UnitEncoder.EFFICIENT)
+                        && !options.level.equals(UnitEncoder.EXTENDED)) {
+                    throw new IllegalArgumentException("--level must be minimal, efficient or extended");
+                }
+            } else if (arg.startsWith("--commander-group=")) {
+                options.commanderGroup = Integer.parseInt(arg.substring("--commander-group=".length()));
+                if (options.commanderGroup < 2) {
+                    throw new IllegalArgumentException("--commander-group must be at least 2");
+                }
+            } else if (arg.startsWith("--threads=")) {
+                options.threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.equals("--deterministic")) {
+                options.deterministic = true;
+            } else if (arg.equals("--portfolio")) {
+                options.portfolio = true;
+            } else if (arg.startsWith("--configs=")) {
+                options.portfolioConfigs = arg.substring("--configs=".length()).split(",");
+            } else if (arg.startsWith("--solver=")) {
+                for (String entry : arg.substring("--solver=".length()).split(",")) {
+                    int colon = entry.indexOf(':');
+                    if (colon < 0) options.solverConfig = entry;
+                    else options.encodingConfigs.put(entry.substring(0, colon), entry.substring(colon + 1));
+                }
+            } else if (arg.startsWith("--tuned=")) {
+                options.loadTuned(arg.substring("--tuned=".length()));
+            } else if (arg.startsWith("--tune=")) {
+                options.tuneFiles = arg.substring("--tune=".length()).split(",");
+            } else if (arg.startsWith("--tune-configs=")) {
+                options.tuneConfigs = arg.substring("--tune-configs=".length()).split(",");
+            } else if (arg.startsWith("--tune-rounds=")) {
+                options.tuneRounds = Integer.parseInt(arg.substring("--tune-rounds=".length()));
+            } else if (arg.startsWith("--tune-output=")) {
+                options.tuneOutput = arg.substring("--tune-output=".length());
+            } else if (arg.startsWith("--batch=")) {
+                options.batchFiles = arg.substring("--batch=".length()).split(",");
+            } else if (arg.startsWith("--batch-output=")) {
+                options.batchOutput = arg.substring("--batch-output=".length());
+            } else if (arg.startsWith("--workers=")) {
+                options.workers = Integer.parseInt(arg.substring("--workers=".length()));
+            } else if (arg.startsWith("--queue=")) {
+                options.queueSize = Integer.parseInt(arg.substring("--queue=".length()));
+            } else if (arg.startsWith("--encodings=")) {
+                options.encodings = arg.substring("--encodings=".length()).split(",");
+            } else if (arg.equals("--auto")) {
+                options.encodings = new String[]{"Auto"};
+            } else if (arg.equals("--template")) {
+                options.template = true;
+            } else if (arg.startsWith("--export-cnf=")) {
+                options.exportDir = arg.substring("--export-cnf=".length());
+            } else if (arg.startsWith("--memory-budget=")) {
+                options.memoryBudget = Long.parseLong(arg.substring("--memory-budget=".length())) << 20;
+            } else if (arg.startsWith("--timeout=")) {
+                options.timeout = Integer.parseInt(arg.substring("--timeout=".length()));
+            } else if (arg.startsWith("--over-budget=")) {
+                options.overBudget = arg.substring("--over-budget=".length());
+                if (!options.overBudget.equals("skip") && !options.overBudget.equals("redirect")) {
+                    throw new IllegalArgumentException("--over-budget must be skip or redirect");
+                }
+            } else if (arg.startsWith("--dlx-timeout=")) {
+                options.exactCoverTimeout = Integer.parseInt(arg.substring("--dlx-timeout=".length()));
+            } else if (arg.startsWith("--cube-cells=")) {
+                options.cubeCells = Integer.parseInt(arg.substring("--cube-cells=".length()));
+            } else if (arg.startsWith("--cube-workers=")) {
+                options.cubeWorkers = Integer.parseInt(arg.substring("--cube-workers=".length()));
+            } else if (arg.startsWith("--cube-scaling=")) {
+                String[] counts = arg.substring("--cube-scaling=".length()).split(",");
+                options.cubeScaling = new int[counts.length];
+                for (int c = 0; c < counts.length; c++) options.cubeScaling[c] = Integer.parseInt(counts[c]);
+            } else if (arg.equals("--lazy")) {
+                options.lazy = true;
+            } else if (arg.equals("--propagate")) {
+                options.propagate = true;
+            } else if (arg.startsWith("--solve-cnf=")) {
+                options.cnfFiles = arg.substring("--solve-cnf=".length()).split(",");
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        if (options.lazy && options.cubeCells > 0) {
+            throw new IllegalArgumentException("--lazy and --cube-cells cannot be combined");
+        }
+        return options;
+    }
+
+    // the most specific configuration set for this encoding and size
+    public String configFor(String encoding, int matrixSize) {
+        String config = encodingConfigs.get(encoding + "/" + matrixSize);
+        if (config == null) config = encodingConfigs.get(encoding);
+        return config == null ? solverConfig : config;
+    }
+
+    private void loadTuned(String path) {
+        Properties tuned = new Properties();
+        try {
+            Reader reader = new FileReader(path);
+            try {
+                tuned.load(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot read " + path + ": " + e.getMessage());
+        }
+        for (String key : tuned.stringPropertyNames()) encodingConfigs.put(key, tuned.getProperty(key));
+    }
+
+    public SolverOptions copy() {
+        try {
+            return (SolverOptions) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
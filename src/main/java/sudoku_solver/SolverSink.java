@@ -0,0 +1,51 @@
+package sudoku_solver;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+// Feeds clauses and at-most-one constraints to a sat4j solver through one reused VecInt,
+// which the solver copies.
+public class SolverSink implements ClauseSink {
+    public ISolver solver;
+    private VecInt clause = new VecInt();
+    private int count = 0;
+
+    public SolverSink(ISolver solver) {
+        this.solver = solver;
+    }
+
+    public void addClause(int[] literals, int length) throws ContradictionException {
+        clause.clear();
+        for (int i = 0; i < length; i++) {
+            clause.push(literals[i]);
+        }
+        solver.addClause(clause);
+        count++;
+    }
+
+    public void addBinary(int a, int b) throws ContradictionException {
+        clause.clear();
+        clause.push(a).push(b);
+        solver.addClause(clause);
+        count++;
+    }
+
+    // one native cardinality constraint instead of length * (length - 1) / 2 clauses
+    public void addAtMostOne(int[] literals, int length) throws ContradictionException {
+        clause.clear();
+        for (int i = 0; i < length; i++) {
+            clause.push(literals[i]);
+        }
+        solver.addAtMost(clause, 1);
+        count++;
+    }
+
+    public void newVars(int count) {
+        solver.newVar(count);
+    }
+
+    public int nClauses() {
+        return count;
+    }
+}
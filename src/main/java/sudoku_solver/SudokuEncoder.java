@@ -0,0 +1,23 @@
+package sudoku_solver;
+
+import org.sat4j.specs.ContradictionException;
+
+// A CNF encoding of sudoku. encode writes the rules and the givens of grid (0 = empty cell)
+// into sink; decode turns a model of that formula back into a filled grid.
+public interface SudokuEncoder {
+    String name();
+
+    void encode(int[][] grid, ClauseSink sink) throws ContradictionException;
+
+    // number of variables used by the last encode
+    int nVars();
+
+    int[][] decode(int[] model);
+
+    // literals that together fix cell (i, j) to value in the full-mode encoding of an empty
+    // grid; TemplateSolver solves every puzzle under those of its givens as assumptions
+    int[] valueLiterals(int i, int j, int value);
+
+    // variables, clauses and literals encode(grid) would produce, without generating them
+    SizeEstimate estimate(int[][] grid);
+}
@@ -1,13 +1,15 @@
 package sudoku_solver;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.Scanner;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
@@ -15,82 +17,234 @@ import java.io.IOException;
 
 public class SudokuMain {
     public static void main(String[] args) throws ContradictionException, IOException {
+        SolverOptions options = SolverOptions.parse(args);
         int numTest = 10;
+        if (options.portfolio) {
+            runPortfolio(numTest, options);
+            return;
+        }
+        if (options.batchFiles != null) {
+            runBatch(options);
+            return;
+        }
+        if (options.tuneFiles != null) {
+            runTune(options);
+            return;
+        }
+        if (options.cubeScaling != null) {
+            runCubeScaling(options);
+            return;
+        }
+        if (options.exportDir != null) {
+            runExport(numTest, options);
+            return;
+        }
+        if (options.cnfFiles != null) {
+            runCnf(options);
+            return;
+        }
         File summaryOutput = new File("src/main/java/sudoku_solver/output/SummaryResult.csv");
         BufferedWriter summaryWriter = new BufferedWriter(new FileWriter(summaryOutput));
-        summaryWriter.write("Test, Size, Bionomial, , , Binary, , , Sequential" + "\n");
-        summaryWriter.write(", , Variables, Clauses, Time, Variables, Clauses, Time, Variables, Clauses, Time" + "\n");
+        BufferedWriter jsonWriter = new BufferedWriter(new FileWriter("src/main/java/sudoku_solver/output/SummaryResult.jsonl"));
+        summaryWriter.write("Test, Size");
+        for (String name : options.encodings) {
+            summaryWriter.write(", " + name);
+            for (int c = 1; c < SolveMetrics.COLUMNS.length; c++) summaryWriter.write(", ");
+        }
+        summaryWriter.write("\n, ");
+        for (String name : options.encodings) {
+            for (String column : SolveMetrics.COLUMNS) summaryWriter.write(", " + column);
+        }
+        summaryWriter.write("\n");
         for (int i = 1; i <= numTest; i++) {
-            int[][] inputMatrix = readInput("src/main/java/sudoku_solver/input/input" + i + ".txt");
-            File bionomialOutput = new File("src/main/java/sudoku_solver/output/BionomialOutput" + i + ".txt");
-            File binaryOutput = new File("src/main/java/sudoku_solver/output/BinaryOutput" + i + ".txt");
-            File sequentialOutput = new File("src/main/java/sudoku_solver/output/SequentialOutput" + i + ".txt");
-
-            summaryWriter.write(i + "," + inputMatrix.length + ",");
-
-            try {
-                BionomialSolver bionomialSolver = new BionomialSolver(inputMatrix.length, standardInput(inputMatrix));
+            String input = "src/main/java/sudoku_solver/input/input" + i + ".txt";
+            int size = 0;
+            StringBuilder row = new StringBuilder();
+            for (String name : options.encodings) {
+                SolveMetrics metrics = SolveMetrics.run(name, i, input, options);
+                size = Math.max(size, metrics.matrixSize);
                 writeOutput(
-                        bionomialOutput,
-                        bionomialSolver.executionTime,
-                        bionomialSolver.solver.nVars(),
-                        bionomialSolver.solver.nConstraints(),
-                        bionomialSolver.result
+                        new File("src/main/java/sudoku_solver/output/" + name + "Output" + i + ".txt"),
+                        metrics.solveTime / 1000000,
+                        metrics.nVars,
+                        metrics.nClauses,
+                        metrics.result
                 );
-                summaryWriter.write(bionomialSolver.solver.nVars() + ","
-                        + bionomialSolver.solver.nConstraints() + "," + bionomialSolver.executionTime + ",");
-
-                        
-                SequentialCounterSolver sc = new SequentialCounterSolver(inputMatrix.length, standardInput(inputMatrix));
-               
-            } catch (OutOfMemoryError e) {
-                summaryWriter.write("out of memory, out of memory, out of memory, ");
+                row.append(",").append(metrics.csv());
+                jsonWriter.write(metrics.json() + "\n");
             }
-            BinarySolver binarySolver = new BinarySolver(inputMatrix.length, standardInput(inputMatrix));
+            summaryWriter.write(i + "," + size + row + "\n");
+            summaryWriter.flush();
+            jsonWriter.flush();
+        }
+        summaryWriter.close();
+        jsonWriter.close();
+    }
+    public static void runPortfolio(int numTest, SolverOptions options) throws IOException {
+        File summaryOutput = new File("src/main/java/sudoku_solver/output/PortfolioResult.csv");
+        BufferedWriter summaryWriter = new BufferedWriter(new FileWriter(summaryOutput));
+        summaryWriter.write("Test, Size, Winner, Variables, Clauses, Time, Entrants" + "\n");
+        for (int i = 1; i <= numTest; i++) {
+            int[][] inputMatrix = readInput("src/main/java/sudoku_solver/input/input" + i + ".txt");
+            PortfolioSolver portfolio = new PortfolioSolver(inputMatrix, options);
             writeOutput(
-                    binaryOutput,
-                    binarySolver.executionTime,
-                    binarySolver.solver.nVars(),
-                    binarySolver.solver.nConstraints(),
-                    binarySolver.result
+                    new File("src/main/java/sudoku_solver/output/PortfolioOutput" + i + ".txt"),
+                    portfolio.executionTime,
+                    portfolio.nVars,
+                    portfolio.nConstraints,
+                    portfolio.result
             );
-            summaryWriter.write(binarySolver.solver.nVars() + ","
-                    + binarySolver.solver.nConstraints() + "," + binarySolver.executionTime + ",");
-            try {
-                SequentialCounterSolver sc = new SequentialCounterSolver(inputMatrix.length, standardInput(inputMatrix));
-                writeOutput(
-                        sequentialOutput,
-                        sc.time,
-                        sc.variables,
-                        sc.clauses,
-                        sc.OutputMatrix
-                );
-                summaryWriter.write(sc.variables + ","+ sc.clauses + "," + sc.time + "\n");
-            } catch (OutOfMemoryError e) {
-                summaryWriter.write("out of memory, out of memory, out of memory\n");
+            summaryWriter.write(i + "," + inputMatrix.length + "," + portfolio.winner + "," + portfolio.nVars + ","
+                    + portfolio.nConstraints + "," + portfolio.executionTime);
+            for (int e = 0; e < portfolio.entrants.length; e++) {
+                summaryWriter.write("," + portfolio.entrants[e] + ": " + portfolio.outcomes[e]);
             }
+            summaryWriter.write("\n");
+            summaryWriter.flush();
         }
         summaryWriter.close();
     }
-    public static int[][] readInput(String path) {
-        int matrixSize;
+
+    public static void runBatch(SolverOptions options) throws IOException {
+        ArrayList<File> files = new ArrayList<File>();
+        for (String path : options.batchFiles) files.add(new File(path));
+        BatchSolver batch = new BatchSolver(files, new File(options.batchOutput), options);
+        try {
+            batch.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.print(batch.report());
+    }
+
+    public static void runTune(SolverOptions options) throws IOException {
+        ArrayList<File> files = new ArrayList<File>();
+        for (String path : options.tuneFiles) files.add(new File(path));
+        ConfigTuner tuner = new ConfigTuner(files, options);
         try {
-            File file = new File(path);
-            Scanner scanner = new Scanner(file);
-            String firstElement = scanner.next();
-            matrixSize = Integer.parseInt(firstElement);
+            tuner.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IOException("tuning failed", e.getCause());
+        }
+        tuner.write(new File(options.tuneOutput));
+        System.out.print(tuner.report());
+    }
+
+    // solve time of every encoding on the large bundled inputs that propagation leaves open, for
+    // each cube worker count; splits on 2 cells unless --cube-cells says otherwise. The speedup
+    // over the first count is only printed while the workers fit on the cores: past that they
+    // time-slice, and the times show the overhead of the split, not how it scales.
+    public static void runCubeScaling(SolverOptions options) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Test, Size, Encoding, Workers, Cubes, Refuted cubes, Status, Solve (ms), Speedup");
+        for (int i = 7; i <= 10; i++) {
+            String input = "src/main/java/sudoku_solver/input/input" + i + ".txt";
+            if (!Propagator.run(readInput(input)).status.equals(Propagator.STUCK)) {
+                System.out.println(i + ",,,,,,settled by propagation,,"); // no search to split
+                continue;
+            }
+            for (String name : options.encodings) {
+                if (name.equals(DancingLinks.NAME)) continue; // a single search, nothing to split
+                long baseline = 0;
+                for (int workers : options.cubeScaling) {
+                    SolverOptions cube = options.copy();
+                    cube.cubeCells = options.cubeCells > 0 ? options.cubeCells : 2;
+                    cube.cubeWorkers = workers;
+                    SolveMetrics metrics = SolveMetrics.run(name, i, input, cube);
+                    if (baseline == 0) baseline = metrics.solveTime;
+                    String speedup = workers > cores || metrics.solveTime == 0 ? "unmeasured"
+                            : String.format("%.2f", (double) baseline / metrics.solveTime);
+                    System.out.println(i + "," + metrics.matrixSize + "," + name + "," + workers + ","
+                            + metrics.cubes + "," + metrics.refutedCubes + "," + metrics.status + ","
+                            + metrics.solveTime / 1000000 + "," + speedup);
+                }
+            }
+        }
+        for (int workers : options.cubeScaling) {
+            if (workers > cores) {
+                System.out.println("only " + cores + " cores: scaling past them is unmeasured on this machine");
+                break;
+            }
+        }
+    }
+
+    // files whose direct variables runCnf can decode get a "c sudoku <size>" comment
+    public static void runExport(int numTest, SolverOptions options) throws IOException, ContradictionException {
+        File dir = new File(options.exportDir);
+        dir.mkdirs();
+        System.out.println("Test, Size, Encoding, Variables, Clauses, Time (ms), File");
+        for (int i = 1; i <= numTest; i++) {
+            int[][] inputMatrix = readInput("src/main/java/sudoku_solver/input/input" + i + ".txt");
+            for (String name : options.encodings) {
+                if (name.equals(DancingLinks.NAME)) continue; // no formula to export
+                SudokuEncoder encoder = Encodings.create(name, inputMatrix.length, options);
+                File file = new File(dir, name + i + ".cnf");
+                long start = System.currentTimeMillis();
+                String comment = directVariables(encoder, options) ? "sudoku " + inputMatrix.length : null;
+                DimacsSink sink = new DimacsSink(file, comment);
+                try {
+                    encoder.encode(inputMatrix, sink);
+                } finally {
+                    sink.close();
+                }
+                System.out.println(i + "," + inputMatrix.length + "," + name + "," + encoder.nVars() + ","
+                        + sink.nClauses() + "," + (System.currentTimeMillis() - start) + "," + file);
+            }
+        }
+    }
 
-            int[][] array = new int[matrixSize][matrixSize];
-            int num = 0;
-            while (scanner.hasNext()) {
-                String element = scanner.next();
-                if (element.equals(".")) array[num / matrixSize][num % matrixSize] = 0;
-                else array[num / matrixSize][num % matrixSize] = Integer.parseInt(element);
-                num++;
+    // full-mode unit encodings (and Auto, which only picks among them) put cell (i, j) = v on
+    // SudokuUnits' variable; Log's bits and the reduced numbering depend on the encoder's state
+    private static boolean directVariables(SudokuEncoder encoder, SolverOptions options) {
+        return !options.reduced && (encoder instanceof UnitEncoder || encoder instanceof AutoEncoder);
+    }
+
+    public static void runCnf(SolverOptions options) throws IOException {
+        System.out.println("File, Variables, Clauses, Load (ms), Solve (ms), Status");
+        for (String path : options.cnfFiles) {
+            ISolver solver = SolverConfig.create(options.solverConfig);
+            DimacsReader reader = new DimacsReader();
+            String status;
+            long start = System.currentTimeMillis();
+            long loaded = start;
+            try {
+                reader.read(new File(path), new SolverSink(solver));
+                loaded = System.currentTimeMillis();
+                status = solver.isSatisfiable() ? SolveResult.SAT : SolveResult.UNSAT;
+            } catch (ContradictionException e) {
+                status = SolveResult.UNSAT;
+            } catch (TimeoutException e) {
+                status = SolveResult.TIMEOUT;
+            }
+            long end = System.currentTimeMillis();
+            if (status.equals(SolveResult.SAT) && reader.matrixSize > 0) {
+                int n = reader.matrixSize;
+                int[][] result = new SudokuUnits(new int[n][n], false).decode(solver.model());
+                // the givens are unit clauses of the file, so only the rules are left to check
+                if (SudokuVerifier.isSolution(new int[n][n], result)) {
+                    writeOutput(new File(path + ".out"), end - start, solver.nVars(), solver.nConstraints(), result);
+                } else {
+                    status = SolveResult.INCORRECT;
+                }
             }
-            scanner.close();
+            System.out.println(path + "," + reader.variables + "," + reader.clauses + "," + (loaded - start) + ","
+                    + (end - loaded) + "," + status);
+        }
+    }
 
-            return array;
+    public static int[][] readInput(String path) {
+        try {
+            PuzzleReader reader = new PuzzleReader(new File(path));
+            try {
+                int[][] array = reader.next();
+                if (array != null) return array;
+            } finally {
+                reader.close();
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,234 @@
+package sudoku_solver;
+
+import java.util.ArrayList;
+
+// Enumerates the exactly-one units of a sudoku (cells, rows, columns, blocks) over the
+// direct variables "cell (i, j) holds value k".
+// In full mode every unit has matrixSize literals and variables are index(i, j, k).
+// In reduced mode the givens are applied before encoding: fixed cells and units whose
+// value is already placed are dropped, candidates ruled out by a given peer are removed,
+// and the remaining (cell, value) pairs are renumbered 1..nDirectVars.
+public class SudokuUnits {
+    public static final int CELL = 0;
+    public static final int ROW = 1;
+    public static final int COLUMN = 2;
+    public static final int BLOCK = 3;
+
+    public int matrixSize;
+    public int blockSize;
+    public boolean hasBlocks;
+    public boolean reduced;
+    public boolean consistent = true;
+    public int nDirectVars;
+    public int[][] givens;
+    private int[] varId; // (cell * matrixSize + k - 1) -> variable, 0 when not a candidate
+    private int[] varCell; // variable -> cell, reduced mode only
+    private int[] varValue; // variable -> value, reduced mode only
+    private boolean[] rowHas;
+    private boolean[] columnHas;
+    private boolean[] blockHas;
+
+    public SudokuUnits(int matrixSize, ArrayList<int[]> input, boolean reduced) {
+        this(toGrid(matrixSize, input), reduced);
+    }
+
+    public SudokuUnits(int[][] grid, boolean reduced) {
+        this.matrixSize = grid.length;
+        this.blockSize = (int) Math.sqrt(matrixSize);
+        this.hasBlocks = matrixSize == blockSize * blockSize;
+        this.reduced = reduced;
+        this.givens = grid;
+        markGivens();
+        if (reduced) {
+            reduce();
+        } else {
+            nDirectVars = matrixSize * matrixSize * matrixSize;
+        }
+    }
+
+    // inverse of SudokuMain.standardInput: unit clauses back to a grid with 0 for empty cells
+    public static int[][] toGrid(int matrixSize, ArrayList<int[]> input) {
+        int[][] grid = new int[matrixSize][matrixSize];
+        for (int[] element : input) {
+            int id = element[0] - 1;
+            grid[id / (matrixSize * matrixSize)][(id / matrixSize) % matrixSize] = id % matrixSize + 1;
+        }
+        return grid;
+    }
+
+    // which value each row, column and block already holds, in both modes for keptLength
+    private void markGivens() {
+        int n = matrixSize;
+        rowHas = new boolean[n * n];
+        columnHas = new boolean[n * n];
+        blockHas = new boolean[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int k = givens[i][j];
+                if (k == 0) continue;
+                int r = i * n + k - 1;
+                int c = j * n + k - 1;
+                int b = block(i, j) * n + k - 1;
+                if (rowHas[r] || columnHas[c] || (hasBlocks && blockHas[b])) consistent = false;
+                rowHas[r] = true;
+                columnHas[c] = true;
+                if (hasBlocks) blockHas[b] = true;
+            }
+        }
+    }
+
+    private void reduce() {
+        int n = matrixSize;
+        varId = new int[n * n * n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (givens[i][j] != 0) continue;
+                for (int k = 1; k <= n; k++) {
+                    if (!placed(i, j, k)) varId[(i * n + j) * n + k - 1] = ++count;
+                }
+            }
+        }
+        nDirectVars = count;
+        varCell = new int[count + 1];
+        varValue = new int[count + 1];
+        for (int cell = 0; cell < n * n; cell++) {
+            for (int k = 1; k <= n; k++) {
+                int v = varId[cell * n + k - 1];
+                if (v != 0) {
+                    varCell[v] = cell;
+                    varValue[v] = k;
+                }
+            }
+        }
+    }
+
+    private boolean placed(int i, int j, int k) {
+        int n = matrixSize;
+        return rowHas[i * n + k - 1] || columnHas[j * n + k - 1] || (hasBlocks && blockHas[block(i, j) * n + k - 1]);
+    }
+
+    private int block(int i, int j) {
+        return (i / blockSize) * blockSize + j / blockSize;
+    }
+
+    public int unitCount(int rule) {
+        if (rule == BLOCK && !hasBlocks) return 0;
+        return matrixSize * matrixSize;
+    }
+
+    // variable of (i, j, k) with 0-based i, j and 1-based k; 0 when it is not a candidate
+    public int var(int i, int j, int k) {
+        if (!reduced) return i * matrixSize * matrixSize + j * matrixSize + k;
+        return varId[(i * matrixSize + j) * matrixSize + k - 1];
+    }
+
+    // Fills buffer with the literals of unit u of the given rule and returns how many there are,
+    // or -1 when the unit is already satisfied by a given and needs no clauses at all.
+    // Unit order matches the original generators: cells by (i, j), rows by (i, k),
+    // columns by (j, k) and blocks by (k, block).
+    public int literals(int rule, int u, int[] buffer) {
+        int n = matrixSize;
+        int a = u / n;
+        int b = u % n;
+        int len = 0;
+        switch (rule) {
+            case CELL:
+                if (reduced && givens[a][b] != 0) return -1;
+                for (int k = 1; k <= n; k++) {
+                    int v = var(a, b, k);
+                    if (v != 0) buffer[len++] = v;
+                }
+                break;
+            case ROW:
+                if (reduced && rowHas[u]) return -1;
+                for (int j = 0; j < n; j++) {
+                    int v = var(a, j, b + 1);
+                    if (v != 0) buffer[len++] = v;
+                }
+                break;
+            case COLUMN:
+                if (reduced && columnHas[u]) return -1;
+                for (int i = 0; i < n; i++) {
+                    int v = var(i, a, b + 1);
+                    if (v != 0) buffer[len++] = v;
+                }
+                break;
+            default:
+                if (reduced && blockHas[b * n + a]) return -1;
+                int startI = (b / blockSize) * blockSize;
+                int startJ = (b % blockSize) * blockSize;
+                for (int p = 0; p < n; p++) {
+                    int v = var(startI + p / blockSize, startJ + p % blockSize, a + 1);
+                    if (v != 0) buffer[len++] = v;
+                }
+        }
+        return len;
+    }
+
+    // Length of unit u as sat4j keeps it once the givens are loaded, -1 when it keeps nothing.
+    // In reduced mode that is the unit as encoded. In full mode the givens are unit clauses:
+    // sat4j drops the literals of given cells and the units a given satisfies, but it only
+    // simplifies a clause against what is assigned when the clause is added, so a candidate
+    // that a given peer rules out stays in the units of the open cells.
+    public int keptLength(int rule, int u) {
+        int n = matrixSize;
+        int a = u / n;
+        int b = u % n;
+        if (reduced) {
+            return literals(rule, u, new int[n]);
+        }
+        int open = 0;
+        switch (rule) {
+            case CELL:
+                return givens[a][b] != 0 ? -1 : n;
+            case ROW:
+                if (rowHas[u]) return -1;
+                for (int j = 0; j < n; j++) if (givens[a][j] == 0) open++;
+                return open;
+            case COLUMN:
+                if (columnHas[u]) return -1;
+                for (int i = 0; i < n; i++) if (givens[i][a] == 0) open++;
+                return open;
+            default:
+                if (blockHas[b * n + a]) return -1;
+                int startI = (b / blockSize) * blockSize;
+                int startJ = (b % blockSize) * blockSize;
+                for (int p = 0; p < n; p++) if (givens[startI + p / blockSize][startJ + p % blockSize] == 0) open++;
+                return open;
+        }
+    }
+
+    // Clauses that pin the givens: unit clauses in full mode, nothing in reduced mode
+    // (the givens are already folded in), or a single empty clause if the givens clash.
+    public ArrayList<int[]> givenClauses() {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        if (!reduced) {
+            for (int i = 0; i < matrixSize; i++) {
+                for (int j = 0; j < matrixSize; j++) {
+                    if (givens[i][j] != 0) result.add(new int[]{var(i, j, givens[i][j])});
+                }
+            }
+        } else if (!consistent) {
+            result.add(new int[0]);
+        }
+        return result;
+    }
+
+    public int[][] decode(int[] model) {
+        int n = matrixSize;
+        int[][] result = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(givens[i], 0, result[i], 0, n);
+        }
+        for (int v = 1; v <= nDirectVars && v <= model.length; v++) {
+            if (model[v - 1] <= 0) continue;
+            if (reduced) {
+                result[varCell[v] / n][varCell[v] % n] = varValue[v];
+            } else {
+                result[(v - 1) / (n * n)][((v - 1) / n) % n] = (v - 1) % n + 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package sudoku_solver;
+
+// Checks a decoded grid against the rules and the givens it was solved from in one pass over
+// the cells. Every row, column and block keeps the values it has seen as bits in long[] masks
+// of (matrixSize + 63) / 64 words, so a repeat is a single AND. With matrixSize in-range
+// values per unit and no repeats, every unit holds each value exactly once.
+public class SudokuVerifier {
+    public static boolean isSolution(int[][] givens, int[][] result) {
+        int n = givens.length;
+        if (result == null || result.length != n) return false;
+        int blockSize = (int) Math.sqrt(n);
+        boolean hasBlocks = blockSize * blockSize == n;
+        int words = (n + 63) >>> 6;
+        long[] rows = new long[n * words];
+        long[] columns = new long[n * words];
+        long[] blocks = new long[hasBlocks ? n * words : 0];
+        for (int i = 0; i < n; i++) {
+            int[] row = result[i];
+            if (row.length != n) return false;
+            int rowBase = i * words;
+            int blockRow = hasBlocks ? (i / blockSize) * blockSize : 0;
+            for (int j = 0; j < n; j++) {
+                int k = row[j] - 1;
+                if (k < 0 || k >= n) return false;
+                if (givens[i][j] != 0 && givens[i][j] != k + 1) return false;
+                int word = k >>> 6;
+                long bit = 1L << k;
+                int r = rowBase + word;
+                int c = j * words + word;
+                if (((rows[r] | columns[c]) & bit) != 0) return false;
+                rows[r] |= bit;
+                columns[c] |= bit;
+                if (hasBlocks) {
+                    int b = (blockRow + j / blockSize) * words + word;
+                    if ((blocks[b] & bit) != 0) return false;
+                    blocks[b] |= bit;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+package sudoku_solver;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+// The rule clauses of an encoding only depend on the size, so they are built once into a
+// long-lived solver and every puzzle of that size is solved with its givens as assumptions.
+// Clauses learned for one puzzle follow from the rules alone and keep helping the next ones.
+// A template is not thread-safe: give each worker its own.
+public class TemplateSolver {
+    public int matrixSize;
+    public SudokuEncoder encoder;
+    public ISolver solver;
+    public int nClauses;
+    public long buildTime; // ns
+    public String skipped; // why the template is over budget and never built, null otherwise
+    private boolean propagate;
+    private boolean contradiction = false;
+    private VecInt assumptions = new VecInt();
+
+    public TemplateSolver(String encoding, int matrixSize, SolverOptions options) {
+        long start = System.nanoTime();
+        SolverOptions full = options.copy();
+        full.reduced = false; // a reduced formula is specific to one set of givens
+        full.lazy = false; // and the units a lazy solve adds too
+        this.matrixSize = matrixSize;
+        this.propagate = options.propagate;
+        this.encoder = Encodings.create(encoding, matrixSize, full);
+        this.solver = SolverConfig.create(options.configFor(encoding, matrixSize));
+        // without givens sat4j keeps the whole formula, which the estimate of an empty grid charges
+        skipped = Budget.exceeds(encoder.estimate(new int[matrixSize][matrixSize]), full);
+        if (skipped != null) return;
+        solver.setTimeout(options.timeout);
+        SolverSink sink = new SolverSink(solver);
+        try {
+            encoder.encode(new int[matrixSize][matrixSize], sink);
+        } catch (ContradictionException e) {
+            contradiction = true;
+        }
+        this.nClauses = sink.nClauses();
+        this.buildTime = System.nanoTime() - start;
+    }
+
+    public SolveResult solve(int[][] grid) {
+        long start = System.nanoTime();
+        int[][] search = grid;
+        if (propagate) {
+            Propagator propagation = Propagator.run(grid);
+            SolveResult settled = SolveResult.propagated(propagation, grid, start);
+            if (settled != null) return settled;
+            search = propagation.grid;
+        }
+        SolveResult run = new SolveResult();
+        run.encoding = encoder.name();
+        run.nVars = solver.nVars();
+        run.nClauses = nClauses;
+        if (skipped != null) {
+            run.status = SolveResult.SKIPPED;
+            return run;
+        }
+        assumptions.clear();
+        for (int i = 0; i < matrixSize; i++) {
+            for (int j = 0; j < matrixSize; j++) {
+                if (search[i][j] == 0) continue;
+                for (int literal : encoder.valueLiterals(i, j, search[i][j])) assumptions.push(literal);
+            }
+        }
+        try {
+            if (!contradiction && solver.isSatisfiable(assumptions)) {
+                run.result = encoder.decode(solver.model());
+                boolean valid = SudokuVerifier.isSolution(grid, run.result);
+                run.status = valid ? SolveResult.SAT : SolveResult.INCORRECT;
+            } else {
+                run.status = SolveResult.UNSAT;
+            }
+        } catch (TimeoutException e) {
+            run.status = SolveResult.TIMEOUT;
+        }
+        run.totalTime = System.nanoTime() - start;
+        return run;
+    }
+}
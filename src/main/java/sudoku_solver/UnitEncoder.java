@@ -0,0 +1,316 @@
+package sudoku_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+// Base of the encodings that turn every cell, row, column and block unit into an
+// at-least-one (ALO) clause and an at-most-one (AMO) constraint over its direct variables.
+// Subclasses only provide atMostOne and say through auxVars, clauses and literals what it
+// adds for a unit of a given length. options.level picks which halves each rule gets:
+//   minimal   - cell ALO and row/column/block AMO, enough to pin down a solution
+//   efficient - minimal plus cell AMO
+//   extended  - every unit exactly-one, the original encodings
+public abstract class UnitEncoder implements SudokuEncoder {
+    public static final String MINIMAL = "minimal";
+    public static final String EFFICIENT = "efficient";
+    public static final String EXTENDED = "extended";
+
+    public int matrixSize;
+    public int blockSize;
+    public SolverOptions options;
+    public SudokuUnits units;
+    private int lastVar;
+
+    protected UnitEncoder(int matrixSize, SolverOptions options) {
+        this.matrixSize = matrixSize;
+        this.blockSize = (int) Math.sqrt(matrixSize);
+        this.options = options;
+    }
+
+    // a sat4j solver in the configuration options give this encoding at this size
+    public ISolver newSolver() {
+        return SolverConfig.create(options.configFor(name(), matrixSize));
+    }
+
+    public void encode(int[][] grid, ClauseSink sink) throws ContradictionException {
+        addGivens(grid, sink);
+        if (options.threads > 1) {
+            generateParallel(sink);
+        } else {
+            generateFirstRuleClauses(sink);
+            generateSecondRuleClauses(sink);
+            generateThirdRuleClauses(sink);
+            if (units.hasBlocks) {
+                generateFourthRuleClauses(sink);
+            }
+        }
+        sink.newVars(lastVar);
+    }
+
+    // only the givens and the cell and row units; LazySolver adds what columns and blocks need
+    public void encodeLazily(int[][] grid, ClauseSink sink) throws ContradictionException {
+        addGivens(grid, sink);
+        generateFirstRuleClauses(sink);
+        generateSecondRuleClauses(sink);
+        sink.newVars(lastVar);
+    }
+
+    private void addGivens(int[][] grid, ClauseSink sink) throws ContradictionException {
+        units = new SudokuUnits(grid, options.reduced);
+        lastVar = units.nDirectVars;
+        //givens go first so the solver can drop the clauses they already satisfy
+        for (int[] element : units.givenClauses()) {
+            sink.addClause(element);
+        }
+    }
+
+    // In full mode every unit has matrixSize literals, so the size is a closed form in the
+    // size and the number of givens; reduced mode sums over the remaining unit lengths.
+    // What sat4j keeps, and so the heap, follows the open cells either way, see keptLength.
+    // With options.lazy it is the formula LazySolver starts from plus every column and block pair
+    // it can refine before a model settles, so Budget never admits a loop that outgrows it.
+    public SizeEstimate estimate(int[][] grid) {
+        SudokuUnits plan = new SudokuUnits(grid, options.reduced);
+        SizeEstimate estimate = new SizeEstimate(name(), plan.nDirectVars);
+        for (int[] element : plan.givenClauses()) estimate.add(1, 0, 1, 0, element.length);
+        int[] literals = new int[matrixSize];
+        int lastRule = options.lazy ? SudokuUnits.ROW : SudokuUnits.BLOCK;
+        for (int rule = SudokuUnits.CELL; rule <= lastRule; rule++) {
+            if (!plan.reduced) add(estimate, rule, plan.unitCount(rule), matrixSize);
+            for (int u = 0; u < plan.unitCount(rule); u++) {
+                if (plan.reduced) {
+                    int length = plan.literals(rule, u, literals);
+                    if (length >= 0) add(estimate, rule, 1, length);
+                }
+                int kept = plan.keptLength(rule, u);
+                if (kept >= 0) keep(estimate, rule, kept);
+            }
+        }
+        for (int rule = lastRule + 1; options.lazy && rule <= SudokuUnits.BLOCK; rule++) {
+            for (int u = 0; u < plan.unitCount(rule); u++) {
+                // in full mode a model can still pair an open cell with a given, a unit clause to sat4j
+                long pairs = pairs(plan.reduced ? plan.literals(rule, u, literals) : matrixSize);
+                long kept = pairs(plan.keptLength(rule, u));
+                estimate.add(1, 0, pairs, pairs, 2 * pairs);
+                estimate.keep(1, kept, 2 * kept);
+            }
+        }
+        return estimate;
+    }
+
+    private static long pairs(long length) {
+        return length < 2 ? 0 : length * (length - 1) / 2;
+    }
+
+    // the ALO clause of a unit with two literals is binary too
+    private void add(SizeEstimate estimate, int rule, long count, int length) {
+        boolean amo = amoFor(rule);
+        boolean alo = aloFor(rule);
+        estimate.add(count, auxFor(rule, length), (amo ? clauses(length) : 0) + (alo ? 1 : 0),
+                binaryFor(rule, length), (amo ? literals(length) : 0) + (alo ? length : 0));
+    }
+
+    // a one-literal ALO is an assignment to sat4j, not a clause it keeps
+    private void keep(SizeEstimate estimate, int rule, int length) {
+        long alo = aloFor(rule) && length > 1 ? length : 0;
+        estimate.keep(1, binaryFor(rule, length), (amoFor(rule) ? literals(length) : 0) + alo);
+    }
+
+    private long binaryFor(int rule, int length) {
+        return (amoFor(rule) ? binaryClauses(length) : 0) + (aloFor(rule) && length == 2 ? 1 : 0);
+    }
+
+    protected boolean aloFor(int rule) {
+        return rule == SudokuUnits.CELL || options.level.equals(EXTENDED);
+    }
+
+    protected boolean amoFor(int rule) {
+        return rule != SudokuUnits.CELL || !options.level.equals(MINIMAL);
+    }
+
+    // added variables of a unit of this rule and length, none when it gets no AMO
+    private int auxFor(int rule, int length) {
+        return amoFor(rule) ? auxVars(length) : 0;
+    }
+
+    private void unit(int rule, int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException {
+        if (amoFor(rule)) atMostOne(literals, length, firstAux, sink);
+        if (aloFor(rule)) sink.addClause(literals, length);
+    }
+
+    protected void generateFirstRuleClauses(ClauseSink sink) throws ContradictionException {
+        //each cell has exactly one value from 1 -> matrixSize
+        generateRuleClauses(SudokuUnits.CELL, sink);
+    }
+
+    protected void generateSecondRuleClauses(ClauseSink sink) throws ContradictionException {
+        //each value exists exactly once each row
+        generateRuleClauses(SudokuUnits.ROW, sink);
+    }
+
+    protected void generateThirdRuleClauses(ClauseSink sink) throws ContradictionException {
+        //each value exists exactly once each column
+        generateRuleClauses(SudokuUnits.COLUMN, sink);
+    }
+
+    protected void generateFourthRuleClauses(ClauseSink sink) throws ContradictionException {
+        //each value exists exactly once each block
+        generateRuleClauses(SudokuUnits.BLOCK, sink);
+    }
+
+    protected void generateRuleClauses(int rule, ClauseSink sink) throws ContradictionException {
+        int[] literals = new int[matrixSize];
+        for (int u = 0; u < units.unitCount(rule); u++) {
+            int length = units.literals(rule, u, literals);
+            if (length >= 0) {
+                unit(rule, literals, length, newVars(auxFor(rule, length)), sink);
+            }
+        }
+    }
+
+    // Every rule is cut into shards of matrixSize units that are encoded on a ForkJoinPool,
+    // each into its own ClauseBuffer, while this thread replays finished buffers into sink.
+    // Added variables are numbered up front, so the formula is the one the sequential path
+    // builds; with options.deterministic the clause order is the same too.
+    private void generateParallel(ClauseSink sink) throws ContradictionException {
+        int rules = units.hasBlocks ? 4 : 3;
+        int perRule = units.unitCount(SudokuUnits.CELL);
+        final int[] firstAux = new int[rules * perRule];
+        int[] literals = new int[matrixSize];
+        for (int rule = 0; rule < rules; rule++) {
+            for (int u = 0; u < perRule; u++) {
+                int length = units.literals(rule, u, literals);
+                if (length >= 0) firstAux[rule * perRule + u] = newVars(auxFor(rule, length));
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try {
+            ExecutorCompletionService<ClauseBuffer> completion = new ExecutorCompletionService<ClauseBuffer>(pool);
+            List<Future<ClauseBuffer>> shards = new ArrayList<Future<ClauseBuffer>>();
+            for (int rule = 0; rule < rules; rule++) {
+                for (int from = 0; from < perRule; from += matrixSize) {
+                    shards.add(completion.submit(shard(rule, from, Math.min(from + matrixSize, perRule), firstAux)));
+                }
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                Future<ClauseBuffer> done;
+                if (options.deterministic) {
+                    done = shards.get(i);
+                    shards.set(i, null);
+                } else {
+                    done = completion.take();
+                }
+                done.get().replayTo(sink);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while encoding", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("encoding shard failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Callable<ClauseBuffer> shard(final int rule, final int from, final int to, final int[] firstAux) {
+        return new Callable<ClauseBuffer>() {
+            public ClauseBuffer call() throws ContradictionException {
+                ClauseBuffer buffer = new ClauseBuffer(4 * matrixSize * matrixSize);
+                int[] literals = new int[matrixSize];
+                int perRule = units.unitCount(SudokuUnits.CELL);
+                for (int u = from; u < to; u++) {
+                    int length = units.literals(rule, u, literals);
+                    if (length >= 0) {
+                        unit(rule, literals, length, firstAux[rule * perRule + u], buffer);
+                    }
+                }
+                return buffer;
+            }
+        };
+    }
+
+    // number of added variables atMostOne uses for a unit of length literals
+    protected abstract int auxVars(int length);
+
+    // clauses (binary ones among them) and literals atMostOne emits for a unit of this length
+    protected abstract long clauses(int length);
+
+    protected abstract long binaryClauses(int length);
+
+    protected abstract long literals(int length);
+
+    // literals[0 .. length) may be overwritten by the caller right after this returns;
+    // the added variables of the unit are firstAux .. firstAux + auxVars(length) - 1.
+    // Shards call this concurrently, so it must not change the encoder's state.
+    protected abstract void atMostOne(int[] literals, int length, int firstAux, ClauseSink sink)
+            throws ContradictionException;
+
+    // what atMostOne emits for every unit length 0 .. matrixSize, found by running it on the
+    // literals 1 .. length, for encodings without a closed form; variables is the aux count
+    protected CountingSink[] countedSizes() {
+        CountingSink[] sizes = new CountingSink[matrixSize + 1];
+        int[] literals = new int[matrixSize];
+        for (int length = 0; length <= matrixSize; length++) {
+            for (int p = 0; p < length; p++) literals[p] = p + 1;
+            final int[] highest = {length};
+            CountingSink sink = new CountingSink() {
+                public void addClause(int[] clause, int size) {
+                    super.addClause(clause, size);
+                    for (int i = 0; i < size; i++) highest[0] = Math.max(highest[0], Math.abs(clause[i]));
+                }
+
+                public void addBinary(int a, int b) {
+                    super.addBinary(a, b);
+                    highest[0] = Math.max(highest[0], Math.max(Math.abs(a), Math.abs(b)));
+                }
+            };
+            try {
+                atMostOne(literals, length, length + 1, sink);
+            } catch (ContradictionException e) {
+                throw new IllegalStateException(e); // a CountingSink takes every clause
+            }
+            sink.newVars(highest[0] - length);
+            sizes[length] = sink;
+        }
+        return sizes;
+    }
+
+    // plain pairwise AMO over literals[from .. to): all of Bionomial and the base case of the
+    // recursive encodings; each unordered pair is emitted once, (b, a) would only duplicate (a, b)
+    protected static void pairwise(int[] literals, int from, int to, ClauseSink sink) throws ContradictionException {
+        for (int a = from; a < to; a++) {
+            for (int b = a + 1; b < to; b++) {
+                sink.addBinary(-literals[a], -literals[b]);
+            }
+        }
+    }
+
+    // hands out count fresh variables and returns the first one
+    protected int newVars(int count) {
+        int first = lastVar + 1;
+        lastVar += count;
+        return first;
+    }
+
+    public int nVars() {
+        return lastVar;
+    }
+
+    public int[][] decode(int[] model) {
+        return units.decode(model);
+    }
+
+    public int[] valueLiterals(int i, int j, int value) {
+        return new int[]{units.var(i, j, value)};
+    }
+}
@@ -0,0 +1,116 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BatchSolverTest {
+    private static final String[] PUZZLES = {
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+            "6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+            "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....",
+            "....14....3....2...7..........9...3.6.1.............8.2.....1.4....5.6.....7.8..."};
+    // two 1s in the first row
+    private static final String UNSOLVABLE =
+            "11...6.........7.13...........4..8..6......5...........418.........3..2...87.....";
+
+    private static File write(String text) throws IOException {
+        File file = File.createTempFile("batch", ".txt");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        out.write(text.getBytes("US-ASCII"));
+        out.close();
+        return file;
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) lines.add(line);
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static SolverOptions options(int workers) {
+        SolverOptions options = new SolverOptions();
+        options.encodings = new String[]{"Binary", "Bionomial"};
+        options.workers = workers;
+        options.queueSize = 2; // smaller than the corpus, so the stages have to wait on each other
+        return options;
+    }
+
+    @Test(timeout = 60000)
+    public void everyPuzzleComesOutOnceInOrder() throws Exception {
+        File input = write(String.join("\n", PUZZLES) + "\n");
+        File output = File.createTempFile("batch", ".csv");
+        output.deleteOnExit();
+
+        // one worker keeps the reader's order, puzzle by puzzle and encoding by encoding
+        BatchSolver batch = new BatchSolver(Arrays.asList(input, input), output, options(1));
+        batch.run();
+        List<String> lines = lines(output);
+        assertEquals(1 + 2 * PUZZLES.length * 2, lines.size());
+        for (int l = 1; l < lines.size(); l++) {
+            String[] fields = lines.get(l).split(",");
+            assertEquals(String.valueOf((l - 1) / 2 + 1), fields[0]);
+            assertEquals(l % 2 == 1 ? "Binary" : "Bionomial", fields[3]);
+            assertEquals(SolveResult.SAT, fields[4]);
+        }
+        assertEquals(2 * PUZZLES.length, batch.puzzles);
+        assertEquals(0, batch.failures);
+
+        // more workers may finish out of order, but every puzzle is still there once per encoding
+        batch = new BatchSolver(Arrays.asList(input), output, options(3));
+        batch.run();
+        lines = lines(output);
+        assertEquals(1 + PUZZLES.length * 2, lines.size());
+        int[] seen = new int[PUZZLES.length];
+        for (String line : lines.subList(1, lines.size())) seen[Integer.parseInt(line.split(",")[0]) - 1]++;
+        for (int count : seen) assertEquals(2, count);
+        assertEquals(PUZZLES.length, batch.latencies.get("Binary").count());
+        assertEquals(PUZZLES.length, batch.latencies.get("Bionomial").count());
+    }
+
+    @Test(timeout = 60000)
+    public void unsolvableAndMalformedPuzzlesStillDrain() throws Exception {
+        File output = File.createTempFile("batch", ".csv");
+        output.deleteOnExit();
+
+        // an unsolvable puzzle is a counted failure, not the end of the batch
+        File input = write(PUZZLES[0] + "\n" + UNSOLVABLE + "\n" + PUZZLES[1] + "\n");
+        BatchSolver batch = new BatchSolver(Arrays.asList(input), output, options(2));
+        batch.run();
+        assertEquals(3, batch.puzzles);
+        assertEquals(1, batch.failures);
+        assertEquals(1 + 3 * 2, lines(output).size());
+        assertTrue(batch.report(), batch.report().contains("1 not solved by every encoding"));
+
+        // a puzzle the reader cannot parse fails the batch, but run still returns
+        input = write(PUZZLES[0] + "\n9\n1 2 x\n" + PUZZLES[1] + "\n");
+        batch = new BatchSolver(Arrays.asList(input), output, options(2));
+        try {
+            batch.run();
+            fail("a malformed puzzle passed");
+        } catch (IOException e) {
+            assertEquals("batch failed", e.getMessage());
+        }
+        assertEquals(1, batch.puzzles);
+    }
+}
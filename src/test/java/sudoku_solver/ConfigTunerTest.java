@@ -0,0 +1,36 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ConfigTunerTest {
+    @Test
+    public void tunedConfigsOverrideTheDefaultPerEncodingAndSize() throws Exception {
+        SolverOptions options = SolverOptions.parse(new String[]{"--solver=Light,Sequential:Glucose",
+                "--encodings=Binary,DLX", "--tune-configs=Default,MiniSATHeap", "--tune-rounds=1", "--workers=2"});
+        assertEquals("Light", options.configFor("Binary", 9));
+        assertEquals("Glucose", options.configFor("Sequential", 9));
+
+        File input = new File("src/main/java/sudoku_solver/input/input3.txt");
+        ConfigTuner tuner = new ConfigTuner(Arrays.asList(input, input), options);
+        tuner.run();
+        assertEquals(1, tuner.scores.size());
+        String winner = tuner.best().get("Binary/9");
+        assertTrue(winner, winner.equals("Default") || winner.equals("MiniSATHeap"));
+
+        File tuned = File.createTempFile("tuned", ".properties");
+        try {
+            tuner.write(tuned);
+            SolverOptions production = SolverOptions.parse(new String[]{"--solver=Light", "--tuned=" + tuned});
+            assertEquals(winner, production.configFor("Binary", 9));
+            assertEquals("Light", production.configFor("Binary", 16));
+        } finally {
+            tuned.delete();
+        }
+    }
+}
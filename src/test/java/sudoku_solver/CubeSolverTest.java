@@ -0,0 +1,105 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class CubeSolverTest {
+    private static final String HARD =
+        "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+    private static int[][] grid(String puzzle) {
+        int[][] grid = new int[9][9];
+        for (int c = 0; c < 81; c++) grid[c / 9][c % 9] = puzzle.charAt(c) - '0';
+        return grid;
+    }
+
+    @Test
+    public void splitsAHardPuzzleAndAgreesOnUnsat() {
+        int[][] grid = grid(HARD);
+        SolverOptions options = new SolverOptions();
+        options.cubeCells = 2;
+        options.cubeWorkers = 2;
+        for (String name : Encodings.ALL) {
+            CubeSolver cubes = new CubeSolver(Encodings.create(name, 9, options), grid, grid, options);
+            assertTrue(name, cubes.cubes.size() > 1);
+            cubes.solve();
+            assertEquals(name, SolveResult.SAT, cubes.status);
+            assertTrue(name, SudokuVerifier.isSolution(grid, cubes.result));
+        }
+
+        grid[0][1] = 8; // clashes with the 8 in the same row
+        options.reduced = true;
+        assertEquals(SolveResult.UNSAT, SolveResult.run(new BinarySolver(9, options), grid, options).status);
+    }
+
+    @Test(timeout = 60000)
+    public void aFailingWorkerStopsTheOthers() {
+        int[][] grid = grid(HARD);
+        SolverOptions options = new SolverOptions();
+        options.cubeCells = 3;
+        options.cubeWorkers = 2;
+        // the first worker to assume a cube waits until the second one has thrown, then counts
+        // the cell values it still assumes
+        final AtomicReference<Thread> first = new AtomicReference<Thread>();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final AtomicInteger after = new AtomicInteger();
+        SudokuEncoder encoder = new BinarySolver(9, options) {
+            @Override
+            public int[] valueLiterals(int i, int j, int value) {
+                if (first.compareAndSet(null, Thread.currentThread())) {
+                    try {
+                        failed.await(10, TimeUnit.SECONDS);
+                        Thread.sleep(200); // until the exception has left the other worker
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else if (first.get() != Thread.currentThread()) {
+                    failed.countDown();
+                    throw new IllegalArgumentException("worker failure");
+                } else {
+                    after.incrementAndGet();
+                }
+                return super.valueLiterals(i, j, value);
+            }
+        };
+        CubeSolver cubes = new CubeSolver(encoder, grid, grid, options);
+        assertTrue(cubes.cubes.size() > 2);
+        try {
+            cubes.solve();
+            fail("the worker failure was swallowed");
+        } catch (IllegalStateException e) {
+            assertEquals("worker failure", e.getCause().getMessage());
+        }
+        // at most the rest of the cube it was assuming, no further cubes
+        assertTrue(after.get() + " values assumed after the failure", after.get() < cubes.cells.length);
+    }
+
+    @Test
+    public void theBufferAndEveryWorkerCountAgainstTheBudget() throws Exception {
+        String path = "src/main/java/sudoku_solver/input/input3.txt";
+        int[][] grid = SudokuMain.readInput(path);
+        SolverOptions options = new SolverOptions();
+        options.memoryBudget = 2 * new BinarySolver(grid.length, options).estimate(grid).memoryBytes();
+        assertNotNull(Budget.plan("Binary", grid, options).encoder);
+
+        options.cubeCells = 2;
+        options.cubeWorkers = 2;
+        Budget budget = Budget.plan("Binary", grid, options);
+        assertNull(budget.encoder);
+        assertTrue(budget.note, budget.note.contains("(3 x "));
+        assertEquals(SolveResult.SKIPPED, SolveMetrics.run("Binary", 3, path, options).status);
+
+        options.cubeWorkers = 1; // the buffer and one solver fit
+        assertNotNull(Budget.plan("Binary", grid, options).encoder);
+    }
+}
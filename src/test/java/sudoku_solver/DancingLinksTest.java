@@ -0,0 +1,36 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DancingLinksTest {
+    @Test
+    public void solvesTheBundledInputsWithAndWithoutBlocks() {
+        for (int test = 1; test <= 6; test++) {
+            int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input" + test + ".txt");
+            SolveResult run = DancingLinks.run(grid, new SolverOptions());
+            assertEquals("input" + test, SolveResult.SAT, run.status);
+            assertTrue("input" + test, SudokuVerifier.isSolution(grid, run.result));
+        }
+    }
+
+    @Test
+    public void reportsUnsatForClashingGivensAndForAnEmptyColumn() {
+        int[][] clash = new int[9][9];
+        clash[0][0] = 1;
+        clash[8][0] = 1;
+        assertEquals(SolveResult.UNSAT, DancingLinks.run(clash, new SolverOptions()).status);
+
+        // consistent givens, but no cell of the first row can take the value 1
+        int[][] blocked = new int[4][4];
+        blocked[1][2] = 1;
+        blocked[2][0] = 1;
+        blocked[0][1] = 2;
+        blocked[0][3] = 3;
+        DancingLinks links = new DancingLinks(blocked);
+        links.solve(Long.MAX_VALUE);
+        assertEquals(SolveResult.UNSAT, links.status);
+    }
+}
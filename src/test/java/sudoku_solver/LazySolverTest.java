@@ -0,0 +1,27 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LazySolverTest {
+    @Test
+    public void addsOnlyBrokenPairsUntilTheModelIsASolution() {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input5.txt");
+        for (boolean reduced : new boolean[]{false, true}) {
+            SolverOptions options = new SolverOptions();
+            options.reduced = reduced;
+            options.lazy = true;
+            LazySolver lazy = new LazySolver(new BionomialSolver(grid.length, options), grid, grid, options);
+            lazy.solve();
+            assertEquals(SolveResult.SAT, lazy.status);
+            assertTrue(SudokuVerifier.isSolution(grid, lazy.result));
+            // every round but the last adds at least one of the 2 * 16 * 16 * 120 column and block pairs
+            assertTrue(lazy.addedPairs >= lazy.rounds - 1);
+            assertTrue(lazy.addedPairs < 2 * 16 * 16 * 120);
+            // and the estimate Budget checks covers all of them
+            assertTrue(lazy.nClauses <= lazy.encoder.estimate(grid).clauses);
+        }
+    }
+}
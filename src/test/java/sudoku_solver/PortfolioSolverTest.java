@@ -0,0 +1,68 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.sat4j.specs.ISolver;
+
+public class PortfolioSolverTest {
+    @Test
+    public void firstVerifiedAnswerWinsAndEveryEntrantHasAnOutcome() {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        SolverOptions options = new SolverOptions();
+        options.encodings = new String[]{"Bionomial", "Binary", "Sequential", "Cardinality", DancingLinks.NAME};
+        options.portfolioConfigs = new String[]{SolverConfig.DEFAULT};
+        PortfolioSolver portfolio = new PortfolioSolver(grid, options);
+
+        assertEquals(4, portfolio.entrants.length); // DLX has no formula to race
+        int won = 0;
+        for (int i = 0; i < portfolio.entrants.length; i++) {
+            String outcome = portfolio.outcomes[i];
+            assertNotNull(portfolio.entrants[i], outcome);
+            if (outcome.startsWith("won")) {
+                won++;
+                assertEquals(portfolio.entrants[i], portfolio.winner);
+            } else {
+                assertTrue(outcome, outcome.startsWith("stopped") || outcome.startsWith("finished late"));
+            }
+        }
+        assertEquals(1, won);
+        assertTrue(portfolio.satisfiable);
+        assertTrue(SudokuVerifier.isSolution(grid, portfolio.result));
+    }
+
+    @Test
+    public void entrantsOverTheBudgetAreSkipped() {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        SolverOptions options = new SolverOptions();
+        options.encodings = new String[]{"Bionomial", "Binary"};
+        options.memoryBudget = 1;
+        PortfolioSolver portfolio = new PortfolioSolver(grid, options);
+
+        assertEquals("none", portfolio.winner);
+        for (String outcome : portfolio.outcomes) assertTrue(outcome, outcome.startsWith("skipped"));
+    }
+
+    // what stops the losers: the search leaves at its next decision once the flag is set
+    @Test
+    public void setFlagStopsTheSearch() throws Exception {
+        String puzzle = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+        int[][] grid = new int[9][9];
+        for (int c = 0; c < 81; c++) grid[c / 9][c % 9] = puzzle.charAt(c) - '0';
+        ISolver solver = SolverConfig.create(SolverConfig.DEFAULT);
+        new BinarySolver(9, new SolverOptions()).encode(grid, new SolverSink(solver));
+        SearchCancellation.attach(solver, new AtomicBoolean(true));
+        try {
+            solver.isSatisfiable();
+            fail("the search ignored the flag");
+        } catch (CancellationException e) {
+            SearchCancellation.stopped(solver);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PropagatorTest {
+    private static int[][] parse(String puzzle) {
+        int n = (int) Math.sqrt(puzzle.length());
+        int[][] grid = new int[n][n];
+        for (int num = 0; num < puzzle.length(); num++) grid[num / n][num % n] = puzzle.charAt(num) - '0';
+        return grid;
+    }
+
+    @Test
+    public void singlesFinishAnEasyPuzzle() {
+        int[][] grid = parse("003020600900305001001806400008102900700000008006708200002609500800203009005010300");
+        Propagator propagation = Propagator.run(grid);
+        assertEquals(Propagator.SOLVED, propagation.status);
+        assertEquals(81 - 32, propagation.assigned);
+        assertTrue(SudokuVerifier.isSolution(grid, propagation.grid));
+    }
+
+    @Test
+    public void hardPuzzleIsReducedAndConflictingGivensAreUnsat() {
+        int[][] grid = parse("800000000003600000070090200050007000000045700000100030001000068008500010090000400");
+        Propagator propagation = Propagator.run(grid);
+        assertEquals(Propagator.STUCK, propagation.status);
+        SolverOptions options = new SolverOptions();
+        options.propagate = true;
+        SolveResult run = SolveResult.run(Encodings.create("Binary", 9, options), grid, options);
+        assertEquals(SolveResult.SAT, run.status);
+
+        grid[0][1] = 8;
+        assertEquals(Propagator.CONTRADICTION, Propagator.run(grid).status);
+        assertEquals(SolveResult.UNSAT, SolveResult.run(Encodings.create("Binary", 9, options), grid, options).status);
+    }
+}
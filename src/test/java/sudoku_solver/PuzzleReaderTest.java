@@ -0,0 +1,90 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class PuzzleReaderTest {
+    private static final String ONE_LINE =
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private static File write(String text, boolean gzip) throws IOException {
+        File file = File.createTempFile("puzzles", gzip ? ".txt.gz" : ".txt");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        if (gzip) out = new GZIPOutputStream(out);
+        out.write(text.getBytes("US-ASCII"));
+        out.close();
+        return file;
+    }
+
+    private static int[][] read(String text) throws IOException {
+        PuzzleReader reader = new PuzzleReader(write(text, false));
+        try {
+            return reader.next();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void everyFormatReadsTheSameGrid() throws IOException {
+        int[][] expected = read(ONE_LINE);
+        assertEquals(9, expected.length);
+        assertEquals(4, expected[0][0]);
+        assertEquals(0, expected[0][1]);
+        assertEquals(5, expected[0][8]);
+
+        StringBuilder header = new StringBuilder("9\n");
+        StringBuilder delimited = new StringBuilder();
+        for (int i = 0; i < 81; i++) {
+            char c = ONE_LINE.charAt(i);
+            header.append(c).append(i % 9 == 8 ? '\n' : ' ');
+            if (i > 0) delimited.append(',');
+            if (c != '.') delimited.append(c);
+        }
+        assertArrayEquals(expected, read(header.toString()));
+        assertArrayEquals(expected, read(delimited.toString()));
+        assertArrayEquals(expected, read(ONE_LINE.replace('.', '0')));
+    }
+
+    @Test
+    public void mixedGzipCorpusIsStreamedInOrder() throws IOException {
+        StringBuilder text = new StringBuilder("# comment\n");
+        text.append(ONE_LINE).append("\r\n\n");
+        text.append("4\n1 . . 4\n. . 1 .\n. 1 . .\n4 . . 1 4 1 2 3 4 3 4 1 2 2 1 4 3 4 3 2 1\n");
+        // 16x16 base 36: g is 16
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 256; i++) big.append(i == 0 ? 'g' : i == 1 ? 'A' : '.');
+        text.append(big).append('\n');
+        text.append("1;.;.;.; 2 ;.;.;.;.;.;.;.;.;.;.;4");
+
+        PuzzleReader reader = new PuzzleReader(write(text.toString(), true));
+        int[] sizes = {9, 4, 4, 16, 4};
+        int count = 0;
+        for (int[][] grid : reader) assertEquals(sizes[count++], grid.length);
+        assertEquals(5, count);
+        reader.close();
+
+        reader = new PuzzleReader(write(text.toString(), false));
+        assertEquals(9, reader.next().length);
+        assertEquals(1, reader.next()[0][0]);
+        assertEquals(4, reader.next()[3][0]);
+        int[][] base36 = reader.next();
+        assertEquals(16, base36[0][0]);
+        assertEquals(10, base36[0][1]);
+        int[][] delimited = reader.next();
+        assertEquals(2, delimited[1][0]);
+        assertEquals(4, delimited[3][3]);
+        assertNull(reader.next());
+        reader.close();
+    }
+}
@@ -0,0 +1,69 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SolveMetricsTest {
+    private static final String INPUT = "src/main/java/sudoku_solver/input/input";
+
+    // the one-level objects json() writes: string keys, string, number or boolean values
+    private static void assertFlatJson(String json) {
+        int p = 0;
+        assertEquals(json, '{', json.charAt(p++));
+        while (true) {
+            p = string(json, p);
+            assertEquals(json, ':', json.charAt(p++));
+            if (json.charAt(p) == '"') {
+                p = string(json, p);
+            } else {
+                int start = p;
+                while (p < json.length() && ",}".indexOf(json.charAt(p)) < 0) p++;
+                String value = json.substring(start, p);
+                assertTrue(json, value.matches("-?\\d+(\\.\\d+)?|true|false"));
+            }
+            char c = json.charAt(p++);
+            if (c == '}') break;
+            assertEquals(json, ',', c);
+        }
+        assertEquals(json, json.length(), p);
+    }
+
+    private static int string(String json, int p) {
+        assertEquals(json, '"', json.charAt(p++));
+        while (json.charAt(p) != '"') {
+            assertTrue(json, json.charAt(p) != '\\');
+            p++;
+        }
+        return p + 1;
+    }
+
+    @Test
+    public void everyRowHasOneFieldPerColumnAndValidJson() {
+        SolverOptions skipping = new SolverOptions();
+        skipping.memoryBudget = 1;
+        SolveMetrics[] runs = {
+                SolveMetrics.run("Binary", 3, INPUT + "3.txt", new SolverOptions()),
+                SolveMetrics.run(DancingLinks.NAME, 3, INPUT + "3.txt", new SolverOptions()),
+                SolveMetrics.run("Binary", 3, INPUT + "3.txt", skipping)};
+        assertEquals(SolveResult.SAT, runs[0].status);
+        assertEquals(SolveResult.SKIPPED, runs[2].status);
+        for (SolveMetrics metrics : runs) {
+            assertEquals(metrics.csv(), SolveMetrics.COLUMNS.length, metrics.csv().split(",", -1).length);
+            assertFlatJson(metrics.json());
+        }
+    }
+
+    // Log needs about 50 s on input6 here, so it cannot finish inside 8
+    @Test
+    public void timedOutSolveKeepsTheTimeItSearched() {
+        SolverOptions options = new SolverOptions();
+        options.timeout = 8;
+        SolveMetrics metrics = SolveMetrics.run("Log", 6, INPUT + "6.txt", options);
+        assertEquals(SolveResult.TIMEOUT, metrics.status);
+        assertTrue(String.valueOf(metrics.solveTime), metrics.solveTime >= 7000000000L);
+        assertEquals(SolveMetrics.COLUMNS.length, metrics.csv().split(",", -1).length);
+        assertFlatJson(metrics.json());
+    }
+}
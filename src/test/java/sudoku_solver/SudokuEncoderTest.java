@@ -0,0 +1,265 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ISolver;
+
+public class SudokuEncoderTest {
+    private static SudokuEncoder[] encoders(int matrixSize, SolverOptions options) {
+        return new SudokuEncoder[]{
+                new BionomialSolver(matrixSize, options),
+                new BinarySolver(matrixSize, options),
+                new SequentialCounterSolver(matrixSize, options),
+                new CardinalitySolver(matrixSize, options),
+                new CommanderSolver(matrixSize, options),
+                new ProductSolver(matrixSize, options),
+                new LogSolver(matrixSize, options),
+                new MixedEncoder(matrixSize, options)
+        };
+    }
+
+    @Test
+    public void countingSinkMatchesClosedForm() throws Exception {
+        CountingSink sink = new CountingSink();
+        new BionomialSolver(4, new SolverOptions()).encode(new int[4][4], sink);
+        // 4 families of 16 units, each one ALO clause and 4 * 3 / 2 pairs
+        assertEquals(64 * 7, sink.clauses);
+        assertEquals(64 * 6, sink.binaryClauses);
+        assertEquals(64, sink.variables);
+    }
+
+    @Test
+    public void everyEncoderSolvesThroughSolverSink() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        for (boolean reduced : new boolean[]{false, true}) {
+            SolverOptions options = new SolverOptions();
+            options.reduced = reduced;
+            for (SudokuEncoder encoder : encoders(grid.length, options)) {
+                ISolver solver = SolverFactory.newDefault();
+                encoder.encode(grid, new SolverSink(solver));
+                assertTrue(encoder.name(), solver.isSatisfiable());
+                assertEquals(encoder.nVars(), solver.nVars());
+                int[][] result = encoder.decode(solver.model());
+                for (int i = 0; i < grid.length; i++) {
+                    int seen = 0;
+                    for (int j = 0; j < grid.length; j++) {
+                        if (grid[i][j] != 0) assertEquals(grid[i][j], result[i][j]);
+                        seen |= 1 << result[i][j];
+                    }
+                    assertEquals(encoder.name(), (1 << (grid.length + 1)) - 2, seen);
+                }
+            }
+        }
+    }
+
+    // order-sensitive fingerprint of everything pushed into the sink
+    private static class HashingSink implements ClauseSink {
+        long hash = 17;
+        int count = 0;
+        int variables = 0;
+
+        public void addClause(int[] literals, int length) {
+            for (int i = 0; i < length; i++) hash = hash * 31 + literals[i];
+            hash = hash * 31;
+            count++;
+        }
+
+        public void addBinary(int a, int b) {
+            addClause(new int[]{a, b}, 2);
+        }
+
+        public void newVars(int count) {
+            variables = count;
+        }
+
+        public int nClauses() {
+            return count;
+        }
+    }
+
+    @Test
+    public void deterministicParallelEncodingMatchesSequential() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input5.txt");
+        SolverOptions parallel = new SolverOptions();
+        parallel.threads = 3;
+        parallel.deterministic = true;
+        SudokuEncoder[] sequentialEncoders = encoders(grid.length, new SolverOptions());
+        SudokuEncoder[] parallelEncoders = encoders(grid.length, parallel);
+        for (int e = 0; e < sequentialEncoders.length; e++) {
+            HashingSink expected = new HashingSink();
+            HashingSink actual = new HashingSink();
+            sequentialEncoders[e].encode(grid, expected);
+            parallelEncoders[e].encode(grid, actual);
+            assertEquals(expected.count, actual.count);
+            assertEquals(expected.variables, actual.variables);
+            assertEquals(sequentialEncoders[e].name(), expected.hash, actual.hash);
+        }
+    }
+
+    @Test
+    public void templateStaysUsableAfterAnUnsatisfiablePuzzle() {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        int[][] clash = new int[grid.length][grid.length];
+        clash[0][0] = 1;
+        clash[0][1] = 1;
+        for (String name : Encodings.ALL) {
+            TemplateSolver template = new TemplateSolver(name, grid.length, new SolverOptions());
+            SolveResult first = template.solve(grid);
+            assertEquals(name, SolveResult.SAT, first.status);
+            assertEquals(name, SolveResult.UNSAT, template.solve(clash).status);
+            SolveResult again = template.solve(grid);
+            assertEquals(name, SolveResult.SAT, again.status);
+            for (int i = 0; i < grid.length; i++) {
+                for (int j = 0; j < grid.length; j++) {
+                    if (grid[i][j] != 0) assertEquals(grid[i][j], again.result[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dimacsRoundTripKeepsEveryClause() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        File file = File.createTempFile("sudoku", ".cnf");
+        try {
+            for (SudokuEncoder encoder : encoders(grid.length, new SolverOptions())) {
+                HashingSink expected = new HashingSink();
+                encoder.encode(grid, expected);
+                DimacsSink sink = new DimacsSink(file, "sudoku " + grid.length);
+                encoder.encode(grid, sink);
+                sink.close();
+                DimacsReader reader = new DimacsReader();
+                HashingSink actual = new HashingSink();
+                reader.read(file, actual);
+                assertEquals(grid.length, reader.matrixSize);
+                assertEquals(expected.count, reader.declaredClauses);
+                assertEquals(expected.variables, actual.variables);
+                assertEquals(encoder.name(), expected.hash, actual.hash);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void dimacsCommentWithHighBytesIsNotTheEndOfTheFile() throws Exception {
+        File file = File.createTempFile("latin1", ".cnf");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            out.write("c caf\u00e9 \u00ff notes\np cnf 2 2\n1 -2 0\n2 0\n".getBytes("ISO-8859-1"));
+            out.close();
+            DimacsReader reader = new DimacsReader();
+            reader.read(file, new CountingSink());
+            assertEquals(2, reader.variables);
+            assertEquals(2, reader.clauses);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void estimateMatchesGeneratedSize() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input5.txt");
+        for (boolean reduced : new boolean[]{false, true}) {
+            SolverOptions options = new SolverOptions();
+            options.reduced = reduced;
+            for (SudokuEncoder encoder : encoders(grid.length, options)) {
+                SizeEstimate estimate = encoder.estimate(grid);
+                CountingSink sink = new CountingSink();
+                encoder.encode(grid, sink);
+                assertEquals(encoder.name(), sink.variables, estimate.variables);
+                assertEquals(encoder.name(), sink.clauses, estimate.clauses);
+                assertEquals(encoder.name(), sink.binaryClauses, estimate.binaryClauses);
+                assertEquals(encoder.name(), sink.literals, estimate.literals);
+            }
+        }
+    }
+
+    // no given absorbs anything, so the whole formula is kept and charged, in either mode
+    @Test
+    public void emptyGridEstimateKeepsEveryClause() throws Exception {
+        int[][] given = SudokuMain.readInput("src/main/java/sudoku_solver/input/input5.txt");
+        int[][] empty = new int[given.length][given.length];
+        SolverOptions reduced = new SolverOptions();
+        reduced.reduced = true;
+        SudokuEncoder[] fulls = encoders(empty.length, new SolverOptions());
+        SudokuEncoder[] reduceds = encoders(empty.length, reduced);
+        for (int e = 0; e < fulls.length; e++) {
+            SizeEstimate full = fulls[e].estimate(empty);
+            CountingSink sink = new CountingSink();
+            fulls[e].encode(empty, sink);
+            assertEquals(fulls[e].name(), sink.binaryClauses, full.keptBinaryClauses);
+            assertTrue(fulls[e].name(), full.keptLiterals <= sink.literals);
+            assertEquals(fulls[e].name(), reduceds[e].estimate(empty).memoryBytes(), full.memoryBytes());
+            assertTrue(fulls[e].name(), full.memoryBytes() > fulls[e].estimate(given).memoryBytes());
+        }
+        // 16 * 16 * 16 cells and values, 4 * 256 units of 16 with 120 pairs each
+        SizeEstimate pairwise = new BionomialSolver(16, new SolverOptions()).estimate(empty);
+        assertEquals(4 * 256 * 120, pairwise.keptBinaryClauses);
+        assertEquals(4 * 256 * 120 * 2 + 4 * 256 * 16, pairwise.keptLiterals);
+    }
+
+    @Test
+    public void everyLevelSolvesAndMatchesItsEstimate() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input5.txt");
+        for (String level : new String[]{UnitEncoder.MINIMAL, UnitEncoder.EFFICIENT}) {
+            SolverOptions options = new SolverOptions();
+            options.level = level;
+            for (SudokuEncoder encoder : encoders(grid.length, options)) {
+                SizeEstimate estimate = encoder.estimate(grid);
+                CountingSink sink = new CountingSink();
+                encoder.encode(grid, sink);
+                assertEquals(encoder.name(), sink.variables, estimate.variables);
+                assertEquals(encoder.name(), sink.clauses, estimate.clauses);
+                assertEquals(encoder.name(), sink.literals, estimate.literals);
+
+                ISolver solver = SolverFactory.newDefault();
+                encoder.encode(grid, new SolverSink(solver));
+                assertTrue(encoder.name(), solver.isSatisfiable());
+                int[][] result = encoder.decode(solver.model());
+                assertTrue(encoder.name() + " " + level, SudokuVerifier.isSolution(grid, result));
+            }
+        }
+        // minimal drops all 3 * 256 row/column/block ALO clauses and the cell AMO pairs
+        SolverOptions minimal = new SolverOptions();
+        minimal.level = UnitEncoder.MINIMAL;
+        SizeEstimate full = new BionomialSolver(16, new SolverOptions()).estimate(new int[16][16]);
+        SizeEstimate reduced = new BionomialSolver(16, minimal).estimate(new int[16][16]);
+        assertEquals(3 * 256 + 256 * 120, full.clauses - reduced.clauses);
+    }
+
+    @Test
+    public void slowBackendsOnlyRunWhenNamed() {
+        SolverOptions options = new SolverOptions();
+        assertTrue(!Arrays.asList(options.encodings).contains("Log"));
+        assertTrue(!Arrays.asList(options.encodings).contains(DancingLinks.NAME));
+        assertTrue(!Encodings.offered("Log", options));
+        assertTrue(Encodings.offered("Binary", options));
+        options.encodings = new String[]{"Binary", "Log"};
+        assertTrue(Encodings.offered("Log", options));
+    }
+
+    @Test
+    public void autoPicksPairwiseWhenSmallAndBinaryWhenLarge() throws Exception {
+        SolverOptions options = new SolverOptions();
+        options.memoryBudget = Long.MAX_VALUE;
+        int[][] small = SudokuMain.readInput("src/main/java/sudoku_solver/input/input3.txt");
+        int[][] large = SudokuMain.readInput("src/main/java/sudoku_solver/input/input10.txt");
+        assertEquals("Bionomial", new AutoEncoder(small.length, options).select(small).name());
+        assertEquals("Binary", new AutoEncoder(large.length, options).select(large).name());
+
+        AutoEncoder auto = new AutoEncoder(small.length, options);
+        ISolver solver = SolverFactory.newDefault();
+        auto.encode(small, new SolverSink(solver));
+        assertTrue(solver.isSatisfiable());
+        assertTrue(SudokuVerifier.isSolution(small, auto.decode(solver.model())));
+    }
+}
@@ -0,0 +1,62 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class SudokuUnitsTest {
+    private static ArrayList<int[]> input(int[][] grid) {
+        return SudokuMain.standardInput(grid);
+    }
+
+    @Test
+    public void fullModeKeepsEveryCandidate() {
+        SudokuUnits units = new SudokuUnits(4, input(new int[4][4]), false);
+        int[] literals = new int[4];
+        assertEquals(64, units.nDirectVars);
+        assertEquals(4, units.literals(SudokuUnits.BLOCK, 0, literals));
+        assertTrue(units.givenClauses().isEmpty());
+    }
+
+    @Test
+    public void reducedModeDropsGivensAndPeers() {
+        int[][] grid = new int[4][4];
+        grid[0][0] = 1;
+        SudokuUnits units = new SudokuUnits(4, input(grid), true);
+        int[] literals = new int[4];
+        assertEquals(-1, units.literals(SudokuUnits.CELL, 0, literals));
+        assertEquals(-1, units.literals(SudokuUnits.ROW, 0, literals));
+        // (0, 1) loses value 1 to its row and block peer
+        assertEquals(3, units.literals(SudokuUnits.CELL, 1, literals));
+        assertEquals(0, units.var(0, 1, 1));
+        assertTrue(units.givenClauses().isEmpty());
+    }
+
+    @Test
+    public void reducedModeDetectsClashingGivens() {
+        int[][] grid = new int[4][4];
+        grid[0][0] = 2;
+        grid[0][3] = 2;
+        SudokuUnits units = new SudokuUnits(4, input(grid), true);
+        assertFalse(units.consistent);
+        assertEquals(0, units.givenClauses().get(0).length);
+    }
+
+    @Test
+    public void reducedEncodingSolvesBundledPuzzle() throws Exception {
+        int[][] grid = SudokuMain.readInput("src/main/java/sudoku_solver/input/input2.txt");
+        SolverOptions options = new SolverOptions();
+        options.reduced = true;
+        BinarySolver solver = new BinarySolver(grid.length, input(grid), options);
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid.length; j++) {
+                if (grid[i][j] != 0) assertEquals(grid[i][j], solver.result[i][j]);
+                assertTrue(solver.result[i][j] >= 1 && solver.result[i][j] <= grid.length);
+            }
+        }
+    }
+}
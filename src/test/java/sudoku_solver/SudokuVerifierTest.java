@@ -0,0 +1,54 @@
+package sudoku_solver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SudokuVerifierTest {
+    // the shifted-rows pattern, a valid solution for any square size
+    private static int[][] solved(int n) {
+        int b = (int) Math.sqrt(n);
+        int[][] grid = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) grid[i][j] = (i * b + i / b + j) % n + 1;
+        }
+        return grid;
+    }
+
+    @Test
+    public void acceptsValidGridsAcrossMaskWords() {
+        for (int n : new int[]{4, 9, 64, 81}) {
+            assertTrue(SudokuVerifier.isSolution(new int[n][n], solved(n)));
+        }
+    }
+
+    @Test
+    public void rejectsBrokenUnitsAndChangedGivens() {
+        int[][] grid = solved(81);
+        int[][] givens = new int[81][81];
+        givens[5][7] = grid[5][7];
+        assertTrue(SudokuVerifier.isSolution(givens, grid));
+
+        givens[5][7] = grid[5][7] % 81 + 1;
+        assertFalse(SudokuVerifier.isSolution(givens, grid));
+
+        // swapping two cells of a row keeps rows and blocks valid but breaks two columns
+        int[][] swapped = solved(81);
+        int t = swapped[0][70];
+        swapped[0][70] = swapped[0][71];
+        swapped[0][71] = t;
+        assertFalse(SudokuVerifier.isSolution(new int[81][81], swapped));
+
+        // swapping two rows of different bands keeps rows and columns valid but breaks blocks
+        int[][] rows = solved(81);
+        int[] r = rows[0];
+        rows[0] = rows[9];
+        rows[9] = r;
+        assertFalse(SudokuVerifier.isSolution(new int[81][81], rows));
+
+        int[][] outOfRange = solved(9);
+        outOfRange[3][3] = 10;
+        assertFalse(SudokuVerifier.isSolution(new int[9][9], outOfRange));
+    }
+}